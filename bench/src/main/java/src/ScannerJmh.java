@@ -0,0 +1,120 @@
+/**
+ * ScannerJmh
+ * -------------------------
+ * JMH benchmarks comparing ManualScanner.nextToken() with Yylex.yylex(),
+ * and the cursor API of ManualScanner, Yylex and DirectScanner, over a
+ * synthetic corpus from CorpusGenerator of --size chars and --mix token mix
+ * (the JMH parameters size and mix). One operation scans the whole corpus;
+ * the tokens and chars counters give tokens and chars (bytes, as the corpus
+ * is ASCII) per second. Allocation comes from JMH's GC profiler (-prof gc),
+ * whose gc.alloc.rate.norm is bytes per corpus scan.
+ *
+ * Usage: cd bench && mvn -B package
+ *        java -jar target/benchmarks.jar ScannerJmh -prof gc -p mix=comment,string -p size=1048576
+ */
+
+
+package src;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ScannerJmh {
+
+    @State(Scope.Benchmark)
+    public static class Corpus {
+        @Param({"1048576"})
+        public int size;
+
+        @Param({"mixed", "comment", "string", "identifier"})
+        public String mix;
+
+        String text;
+        char[] chars;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            text = CorpusGenerator.generate(size, CorpusGenerator.Mix.parse(mix), 42);
+            chars = text.toCharArray();
+        }
+    }
+
+    /** Tokens and chars scanned, reported by JMH per second. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counts {
+        public long tokens;
+        public long chars;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            tokens = 0;
+            chars = 0;
+        }
+
+        long add(long scanned, int length) {
+            tokens += scanned;
+            chars += length;
+            return scanned;
+        }
+    }
+
+    @Benchmark
+    public long manualNextToken(Corpus corpus, Counts counts) {
+        ManualScanner scanner = new ManualScanner((CharSequence) corpus.text, new SymbolTable(), new ErrorHandler(false));
+        long tokens = 0;
+        while (scanner.nextToken().type != TokenType.EOF) tokens++;
+        return counts.add(tokens, corpus.chars.length);
+    }
+
+    @Benchmark
+    public long manualCursor(Corpus corpus, Counts counts) {
+        ManualScanner scanner = new ManualScanner((CharSequence) corpus.text, new SymbolTable(), new ErrorHandler(false));
+        long tokens = 0;
+        while (scanner.next() != TokenType.EOF) tokens++;
+        return counts.add(tokens, corpus.chars.length);
+    }
+
+    @Benchmark
+    public long jflexYylex(Corpus corpus, Counts counts) throws IOException {
+        Yylex scanner = new Yylex(new StringReader(corpus.text));
+        long tokens = 0;
+        while (scanner.yylex() != null) tokens++;
+        return counts.add(tokens, corpus.chars.length);
+    }
+
+    @Benchmark
+    public long jflexCursor(Corpus corpus, Counts counts) throws IOException {
+        Yylex scanner = new Yylex(corpus.chars, 0, corpus.chars.length);
+        long tokens = 0;
+        while (scanner.next() != TokenType.EOF) tokens++;
+        return counts.add(tokens, corpus.chars.length);
+    }
+
+    @Benchmark
+    public long directCursor(Corpus corpus, Counts counts) {
+        DirectScanner scanner = new DirectScanner(corpus.chars, 0, corpus.chars.length);
+        long tokens = 0;
+        while (scanner.next() != TokenType.EOF) tokens++;
+        return counts.add(tokens, corpus.chars.length);
+    }
+}
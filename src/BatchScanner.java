@@ -0,0 +1,286 @@
+/**
+ * BatchScanner
+ * -------------------------
+ * Scans many .lang files in one JVM. Arguments may be files, directories
+ * (searched recursively for .lang files) or glob patterns such as
+ * "tests/**.lang". The files are scanned concurrently on a work-stealing
+ * ForkJoinPool, each with its own ManualScanner, SymbolTable and
+ * ErrorHandler so that no state is shared between files. With
+ * --global-symbols the files instead feed one ConcurrentSymbolTable for the
+ * whole project, which --symbols table|csv|json writes out after the
+ * statistics (sorted with --sort id|name|frequency|line and cut with
+ * --top n). With --cache dir, files go through a TokenCache kept in that
+ * directory, so unchanged files are not scanned again on later runs.
+ * Per-file results are collected and printed in input order, followed by
+ * totals across all files.
+ */
+
+
+package src;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class BatchScanner {
+    private static final TokenType[] TYPES = TokenType.values();
+
+    /** What scanning one file produced. */
+    public static class FileResult {
+        public final Path path;
+        public int tokens;
+        public int lines;
+        public final int[] countsByType = new int[TYPES.length];
+        public int symbols = -1;  // Not counted per file with a global table
+        public List<String> errors = new ArrayList<>();
+        public String failure;  // Set when the file could not be read
+        public String cacheFailure;  // Set when the tokens could not be written to the cache
+
+        FileResult(Path path) {
+            this.path = path;
+        }
+    }
+
+    private static class FileTask extends RecursiveTask<FileResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path path;
+        private final Symbols st;
+        private final TokenCache cache;
+
+        FileTask(Path path, Symbols st, TokenCache cache) {
+            this.path = path;
+            this.st = st;
+            this.cache = cache;
+        }
+
+        @Override
+        protected FileResult compute() {
+            if (st != null) return scanFile(path, st, cache);
+            SymbolTable own = new SymbolTable();
+            FileResult result = scanFile(path, own, cache);
+            result.symbols = own.size();
+            return result;
+        }
+    }
+
+    public static FileResult scanFile(Path path) {
+        SymbolTable st = new SymbolTable();
+        FileResult result = scanFile(path, st);
+        result.symbols = st.size();
+        return result;
+    }
+
+    /** Scans a file, adding its identifiers to the given table. */
+    public static FileResult scanFile(Path path, Symbols st) {
+        return scanFile(path, st, null);
+    }
+
+    /** Scans a file, or takes its tokens from the cache if it is not null. */
+    public static FileResult scanFile(Path path, Symbols st, TokenCache cache) {
+        FileResult result = new FileResult(path);
+        ErrorHandler eh = new ErrorHandler(false);
+        try {
+            if (cache != null) {
+                TokenCache.Result cached = cache.scan(path, TokenCache.Scanner.MANUAL, st, eh);
+                result.tokens = cached.tokens.size();
+                for (int i = 0; i < cached.tokens.size(); i++) result.countsByType[cached.tokens.type(i).ordinal()]++;
+                result.lines = cached.lines;
+                if (cached.storeFailure != null) result.cacheFailure = cached.storeFailure.toString();
+            } else {
+                ManualScanner scanner = new ManualScanner(path.toString(), st, eh);
+                TokenType type;
+                while ((type = scanner.next()) != TokenType.EOF) {
+                    result.tokens++;
+                    result.countsByType[type.ordinal()]++;
+                }
+                result.lines = scanner.line;
+            }
+        } catch (IOException e) {
+            result.failure = e.getMessage();
+        }
+        result.errors = eh.getErrors();
+        return result;
+    }
+
+    /** Scans the files on the pool and returns their results in the same order. */
+    public static List<FileResult> scanAll(List<Path> files, ForkJoinPool pool) {
+        return scanAll(files, pool, null, null);
+    }
+
+    /**
+     * Scans the files on the pool, all adding to one shared table (file i is
+     * recorded as index i), or to a table of their own when it is null.
+     */
+    public static List<FileResult> scanAll(List<Path> files, ForkJoinPool pool, ConcurrentSymbolTable global) {
+        return scanAll(files, pool, global, null);
+    }
+
+    /** As scanAll(files, pool, global), taking unchanged files from the cache if it is not null. */
+    public static List<FileResult> scanAll(List<Path> files, ForkJoinPool pool, ConcurrentSymbolTable global,
+                                           TokenCache cache) {
+        List<FileTask> tasks = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            tasks.add(new FileTask(files.get(i), global == null ? null : global.forFile(i), cache));
+        }
+        return pool.invoke(new RecursiveTask<List<FileResult>>() {
+            @Override
+            protected List<FileResult> compute() {
+                invokeAll(tasks);
+                List<FileResult> results = new ArrayList<>();
+                for (FileTask task : tasks) results.add(task.join());
+                return results;
+            }
+        });
+    }
+
+    /**
+     * Expands files, directories and glob patterns into a list of .lang files.
+     * A file named by more than one argument is listed once, where it first
+     * appears; files are compared by their normalized absolute paths.
+     */
+    public static List<Path> collectFiles(List<String> args) throws IOException {
+        Map<Path, Path> files = new LinkedHashMap<>();   // Normalized absolute path to the path as given
+        for (String arg : args) {
+            List<Path> found;
+            if (arg.indexOf('*') >= 0 || arg.indexOf('?') >= 0 || arg.indexOf('[') >= 0) {
+                // Walk from the part of the pattern before the first wildcard
+                int wildcard = arg.length();
+                for (char c : new char[] {'*', '?', '['}) {
+                    int i = arg.indexOf(c);
+                    if (i >= 0) wildcard = Math.min(wildcard, i);
+                }
+                int slash = arg.lastIndexOf('/', wildcard);
+                Path base = Paths.get(slash < 0 ? "." : arg.substring(0, slash + 1));
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + arg);
+                try (Stream<Path> walk = Files.walk(base)) {
+                    found = walk.filter(Files::isRegularFile)
+                        .map(p -> slash < 0 ? base.relativize(p) : p)
+                        .filter(matcher::matches)
+                        .sorted()
+                        .collect(Collectors.toList());
+                }
+            } else {
+                Path path = Paths.get(arg);
+                if (Files.isDirectory(path)) {
+                    try (Stream<Path> walk = Files.walk(path)) {
+                        found = walk.filter(Files::isRegularFile)
+                            .filter(p -> p.toString().endsWith(".lang"))
+                            .sorted()
+                            .collect(Collectors.toList());
+                    }
+                } else {
+                    found = List.of(path);
+                }
+            }
+            for (Path path : found) files.putIfAbsent(path.toAbsolutePath().normalize(), path);
+        }
+        return new ArrayList<>(files.values());
+    }
+
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ConcurrentSymbolTable global = null;
+        TokenCache cache = null;
+        SymbolTableReport.Format symbolsFormat = null;
+        SymbolTableReport.Sort symbolsSort = SymbolTableReport.Sort.ID;
+        int top = Integer.MAX_VALUE;
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--cache") && i + 1 < args.length) {
+                cache = new TokenCache(256L << 20, Paths.get(args[++i]));
+            } else if (args[i].equals("--global-symbols")) {
+                global = new ConcurrentSymbolTable();
+            } else if (args[i].equals("--symbols") && i + 1 < args.length) {
+                symbolsFormat = SymbolTableReport.Format.parse(args[++i]);
+            } else if (args[i].equals("--sort") && i + 1 < args.length) {
+                symbolsSort = SymbolTableReport.Sort.parse(args[++i]);
+            } else if (args[i].equals("--top") && i + 1 < args.length) {
+                top = Integer.parseInt(args[++i]);
+            } else {
+                inputs.add(args[i]);
+            }
+        }
+        if (inputs.isEmpty()) inputs.add("tests");
+        if (symbolsFormat != null && global == null) global = new ConcurrentSymbolTable();
+
+        try {
+            List<Path> files = collectFiles(inputs);
+            long startTime = System.nanoTime();
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            List<FileResult> results;
+            try {
+                results = scanAll(files, pool, global, cache);
+            } finally {
+                pool.shutdown();
+            }
+            long elapsed = System.nanoTime() - startTime;
+
+            System.out.println("--- Batch Scanner Output ---");
+            System.out.printf("%-40s %-10s %-10s %-10s %-10s%n", "File", "Tokens", "Lines", "Symbols", "Errors");
+            int totalTokens = 0;
+            int totalErrors = 0;
+            int failed = 0;
+            int notCached = 0;
+            Map<TokenType, Integer> tokenCounts = new TreeMap<>();
+            for (FileResult r : results) {
+                if (r.failure != null) {
+                    failed++;
+                    System.out.printf("%-40s could not be read: %s%n", r.path, r.failure);
+                    continue;
+                }
+                System.out.printf("%-40s %-10d %-10d %-10s %-10d%n",
+                    r.path, r.tokens, r.lines, r.symbols < 0 ? "-" : String.valueOf(r.symbols), r.errors.size());
+                if (r.cacheFailure != null) {
+                    notCached++;
+                    System.out.printf("%-40s could not be cached: %s%n", r.path, r.cacheFailure);
+                }
+                totalTokens += r.tokens;
+                totalErrors += r.errors.size();
+                for (int t = 0; t < TYPES.length; t++) {
+                    if (r.countsByType[t] > 0) tokenCounts.merge(TYPES[t], r.countsByType[t], Integer::sum);
+                }
+            }
+
+            for (FileResult r : results) {
+                if (r.errors.isEmpty()) continue;
+                System.err.println("\n--- Errors in " + r.path + " ---");
+                for (String error : r.errors) System.err.println(error);
+            }
+
+            System.out.println("\n--- Batch Statistics ---");
+            System.out.println("Files Scanned: " + (results.size() - failed));
+            if (failed > 0) System.out.println("Files Not Read: " + failed);
+            if (notCached > 0) System.out.println("Files Not Cached: " + notCached);
+            System.out.println("Total Tokens: " + totalTokens);
+            System.out.println("Total Errors: " + totalErrors);
+            if (global != null) System.out.println("Distinct Symbols: " + global.size());
+            if (cache != null) System.out.println("Token Cache: " + cache.stats());
+            System.out.printf("Elapsed: %.1f ms on %d threads%n", elapsed / 1e6, threads);
+            System.out.println("Token Counts by Type:");
+            for (Map.Entry<TokenType, Integer> entry : tokenCounts.entrySet()) {
+                System.out.println("  " + String.format("%-15s", entry.getKey()) + ": " + entry.getValue());
+            }
+
+            if (symbolsFormat != null) {
+                new SymbolTableReport(global).format(symbolsFormat).sortBy(symbolsSort).top(top).write(System.out);
+            }
+        } catch (IOException e) {
+            System.err.println("Error listing files: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * BinaryTokenSink
+ * -------------------------
+ * Writes tokens as fixed-layout binary records: the type ordinal as a byte,
+ * then line, column and lexeme length as big-endian ints, then the lexeme
+ * as UTF-16 chars. Records are collected in a large buffer and written to
+ * the channel in bulk. Useful as an output that costs no text formatting.
+ */
+
+
+package src;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+public class BinaryTokenSink implements TokenSink {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final WritableByteChannel out;
+    private ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+
+    public BinaryTokenSink(OutputStream out) {
+        this(Channels.newChannel(out));
+    }
+
+    public BinaryTokenSink(WritableByteChannel out) {
+        this.out = out;
+    }
+
+    @Override
+    public void token(TokenType type, int offset, char[] text, int start, int length, int line, int column) throws IOException {
+        int needed = 13 + 2 * length;
+        if (buf.remaining() < needed) {
+            flush();
+            if (buf.capacity() < needed) buf = ByteBuffer.allocate(needed);
+        }
+        buf.put((byte) type.ordinal());
+        buf.putInt(line);
+        buf.putInt(column);
+        buf.putInt(length);
+        for (int i = start; i < start + length; i++) buf.putChar(text[i]);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) out.write(buf);
+        buf.clear();
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * CharClass
+ * -------------------------
+ * Character classification for the manual scanner. Outside string literals
+ * the language is ASCII, so the classes of the first 128 characters are
+ * precomputed into a flag table, much like the character map Yylex uses to
+ * translate input into DFA columns. Characters from 128 up fall back to the
+ * java.lang.Character methods, which keeps the scanner's behaviour for
+ * non-ASCII text unchanged.
+ */
+
+
+package src;
+
+public final class CharClass {
+    private static final byte LETTER = 1;
+    private static final byte DIGIT = 2;
+    private static final byte UPPER = 4;
+    private static final byte WORD = 8;    // Letter, digit or underscore
+    private static final byte BLANK = 16;  // Whitespace other than newline
+
+    private static final byte[] TABLE = new byte[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) TABLE[c] = LETTER | WORD;
+        for (char c = 'A'; c <= 'Z'; c++) TABLE[c] = LETTER | UPPER | WORD;
+        for (char c = '0'; c <= '9'; c++) TABLE[c] = DIGIT | WORD;
+        TABLE['_'] = WORD;
+        TABLE[' '] = BLANK;
+        TABLE['\t'] = BLANK;
+        TABLE['\r'] = BLANK;
+    }
+
+    private CharClass() {}
+
+    public static boolean isLetter(char c) {
+        return c < 128 ? (TABLE[c] & LETTER) != 0 : Character.isLetter(c);
+    }
+
+    public static boolean isDigit(char c) {
+        return c < 128 ? (TABLE[c] & DIGIT) != 0 : Character.isDigit(c);
+    }
+
+    public static boolean isUpperCase(char c) {
+        return c < 128 ? (TABLE[c] & UPPER) != 0 : Character.isUpperCase(c);
+    }
+
+    /** Whether c can continue a word: a letter, a digit or an underscore. */
+    public static boolean isWordPart(char c) {
+        return c < 128 ? (TABLE[c] & WORD) != 0 : Character.isLetterOrDigit(c);
+    }
+
+    /** Whether c is a space, tab or carriage return. */
+    public static boolean isBlank(char c) {
+        return c < 128 && (TABLE[c] & BLANK) != 0;
+    }
+}
@@ -0,0 +1,249 @@
+/**
+ * ConcurrentSymbolTable
+ * -------------------------
+ * A symbol table that many scanner threads can fill at once, for building
+ * one identifier table across all the files of a project. Symbols are kept
+ * in a ConcurrentHashMap, so threads only contend when they touch the same
+ * bin, and an identifier that is already known is found without creating a
+ * String. Frequencies are LongAdder cells. The first occurrence is the
+ * smallest (file, line) pair, kept with an atomic minimum, so it does not
+ * depend on the order in which threads got there.
+ *
+ * Each scanner is given the view returned by forFile(), which records the
+ * file index with every add. Ids stay dense, but are handed out in the
+ * order threads first reach each symbol. The per-id accessors are meant to
+ * be read once the scans feeding the table have finished.
+ *
+ * It implements Symbols alongside SymbolTable rather than extending it, so
+ * none of SymbolTable's arrays or serialization comes along unused.
+ * clear() swaps in an empty map, id counter and id index.
+ */
+
+
+package src;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ConcurrentSymbolTable implements Symbols {
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    /** Key over a range of chars; probes point into the scanner's buffer, stored keys own a copy. */
+    private static final class CharKey {
+        char[] chars;
+        int start;
+        int length;
+        int hash;
+
+        CharKey set(char[] chars, int start, int length) {
+            this.chars = chars;
+            this.start = start;
+            this.length = length;
+            this.hash = SymbolTable.hash(chars, start, length);
+            return this;
+        }
+
+        CharKey copy() {
+            return new CharKey().set(Arrays.copyOfRange(chars, start, start + length), 0, length);
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CharKey)) return false;
+            CharKey other = (CharKey) o;
+            if (other.hash != hash || other.length != length) return false;
+            for (int i = 0; i < length; i++) {
+                if (chars[start + i] != other.chars[other.start + i]) return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class Entry {
+        final int id;
+        final String name;
+        final LongAdder frequency = new LongAdder();
+        final AtomicLong first;     // File index in the high half, line in the low half
+        volatile String type;
+
+        Entry(int id, String name, long first, String type) {
+            this.id = id;
+            this.name = name;
+            this.first = new AtomicLong(first);
+            this.type = type;
+        }
+    }
+
+    /** The symbols, the next id and the id index; clear() swaps in a new one. */
+    private static final class Contents {
+        final ConcurrentHashMap<CharKey, Entry> table = new ConcurrentHashMap<>();
+        final AtomicInteger nextId = new AtomicInteger();
+        volatile Entry[][] pages = new Entry[16][];
+
+        void store(Entry entry) {
+            int page = entry.id >>> PAGE_BITS;
+            Entry[][] current = pages;
+            if (page >= current.length || current[page] == null) current = addPage(page);
+            current[page][entry.id & (PAGE_SIZE - 1)] = entry;
+        }
+
+        private synchronized Entry[][] addPage(int page) {
+            Entry[][] current = pages;
+            if (page >= current.length) current = Arrays.copyOf(current, Math.max(page + 1, current.length * 2));
+            if (current[page] == null) current[page] = new Entry[PAGE_SIZE];
+            pages = current;
+            return current;
+        }
+    }
+
+    private volatile Contents contents = new Contents();
+
+    /** A view of this table for a scanner working on the file with the given index. */
+    public Symbols forFile(int file) {
+        return new FileView(file);
+    }
+
+    @Override
+    public int add(String lexeme, String type, int line) {
+        char[] text = lexeme.toCharArray();
+        return add(new CharKey().set(text, 0, text.length), 0, type, line, 1);
+    }
+
+    @Override
+    public int add(char[] text, int start, int length, String type, int line) {
+        return add(new CharKey().set(text, start, length), 0, type, line, 1);
+    }
+
+    @Override
+    public int add(char[] text, int start, int length, String type, int line, int count) {
+        return add(new CharKey().set(text, start, length), 0, type, line, count);
+    }
+
+    private int add(CharKey probe, int file, String type, int line, int count) {
+        long first = ((long) file << 32) | (line & 0xffffffffL);
+        Contents c = contents;
+        Entry entry = c.table.get(probe);
+        if (entry == null) {
+            entry = c.table.computeIfAbsent(probe.copy(), key -> {
+                Entry created = new Entry(c.nextId.getAndIncrement(),
+                    new String(key.chars, 0, key.length), first, type);
+                c.store(created);
+                return created;
+            });
+        }
+        entry.frequency.add(count);
+        if (first < entry.first.get() && first < entry.first.getAndAccumulate(first, Math::min)) {
+            // The type goes with the earliest occurrence; a later, smaller minimum overrides it
+            synchronized (entry) {
+                if (entry.first.get() == first) entry.type = type;
+            }
+        }
+        return entry.id;
+    }
+
+    private Entry entry(int id) {
+        Contents c = contents;
+        int size = c.nextId.get();
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("Symbol " + id + " of " + size);
+        return c.pages[id >>> PAGE_BITS][id & (PAGE_SIZE - 1)];
+    }
+
+    /**
+     * Removes every symbol by starting on an empty map, ids and index. Adds
+     * that are still running when it is called may land in the old contents.
+     */
+    @Override
+    public void clear() {
+        contents = new Contents();
+    }
+
+    @Override
+    public int lookup(char[] text, int start, int length) {
+        Entry entry = contents.table.get(new CharKey().set(text, start, length));
+        return entry == null ? -1 : entry.id;
+    }
+
+    @Override
+    public int size() {
+        return contents.nextId.get();
+    }
+
+    @Override
+    public String name(int id) {
+        return entry(id).name;
+    }
+
+    @Override
+    public String type(int id) {
+        return entry(id).type;
+    }
+
+    @Override
+    public int firstLine(int id) {
+        return (int) entry(id).first.get();
+    }
+
+    /** Index of the first file the symbol was seen in, as given to forFile(). */
+    public int firstFile(int id) {
+        return (int) (entry(id).first.get() >>> 32);
+    }
+
+    @Override
+    public int frequency(int id) {
+        return entry(id).frequency.intValue();
+    }
+
+    /** Adds on behalf of one file; used by a single scanner thread at a time. */
+    private final class FileView implements Symbols {
+        private final int file;
+        private final CharKey probe = new CharKey();
+
+        FileView(int file) {
+            this.file = file;
+        }
+
+        @Override
+        public int add(String lexeme, String type, int line) {
+            char[] text = lexeme.toCharArray();
+            return ConcurrentSymbolTable.this.add(probe.set(text, 0, text.length), file, type, line, 1);
+        }
+
+        @Override
+        public int add(char[] text, int start, int length, String type, int line) {
+            return ConcurrentSymbolTable.this.add(probe.set(text, start, length), file, type, line, 1);
+        }
+
+        @Override
+        public int add(char[] text, int start, int length, String type, int line, int count) {
+            return ConcurrentSymbolTable.this.add(probe.set(text, start, length), file, type, line, count);
+        }
+
+        @Override
+        public void clear() { ConcurrentSymbolTable.this.clear(); }
+
+        @Override
+        public int lookup(char[] text, int start, int length) { return ConcurrentSymbolTable.this.lookup(text, start, length); }
+
+        @Override
+        public int size() { return ConcurrentSymbolTable.this.size(); }
+
+        @Override
+        public String name(int id) { return ConcurrentSymbolTable.this.name(id); }
+
+        @Override
+        public String type(int id) { return ConcurrentSymbolTable.this.type(id); }
+
+        @Override
+        public int firstLine(int id) { return ConcurrentSymbolTable.this.firstLine(id); }
+
+        @Override
+        public int frequency(int id) { return ConcurrentSymbolTable.this.frequency(id); }
+    }
+}
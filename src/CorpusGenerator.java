@@ -0,0 +1,143 @@
+/**
+ * CorpusGenerator
+ * -------------------------
+ * Produces synthetic .lang source text for benchmarking the scanners. The
+ * size of the corpus and the mix of constructs are configurable: a mixed
+ * program, or one dominated by comments, string literals or identifiers.
+ * Output is deterministic for a given seed and only uses constructs that
+ * both the manual and the JFlex scanner accept, so timings are not skewed by
+ * error reporting.
+ */
+
+
+package src;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+public class CorpusGenerator {
+    public enum Mix {
+        MIXED, COMMENT_HEAVY, STRING_HEAVY, IDENTIFIER_HEAVY;
+
+        public static Mix parse(String name) {
+            switch (name.toLowerCase()) {
+                case "comment": return COMMENT_HEAVY;
+                case "string": return STRING_HEAVY;
+                case "identifier": return IDENTIFIER_HEAVY;
+                default: return MIXED;
+            }
+        }
+    }
+
+    private static final String[] NAMES = {
+        "Count", "Total", "Price", "Result", "Index", "X", "Y", "Value1", "Sum", "Temp"
+    };
+
+    private final Random random;
+    private final StringBuilder out;
+
+    private CorpusGenerator(long seed, int size) {
+        this.random = new Random(seed);
+        this.out = new StringBuilder(size + 256);
+    }
+
+    /** Generates a program of roughly size chars. */
+    public static String generate(int size, Mix mix, long seed) {
+        CorpusGenerator gen = new CorpusGenerator(seed, size);
+        gen.out.append("start\n");
+        while (gen.out.length() < size) {
+            gen.statement(mix);
+        }
+        gen.out.append("finish\n");
+        return gen.out.toString();
+    }
+
+    private void statement(Mix mix) {
+        int roll = random.nextInt(100);
+        switch (mix) {
+            case COMMENT_HEAVY:
+                if (roll < 45) lineComment();
+                else if (roll < 80) blockComment();
+                else assignment();
+                break;
+            case STRING_HEAVY:
+                if (roll < 70) output();
+                else assignment();
+                break;
+            case IDENTIFIER_HEAVY:
+                if (roll < 80) identifierExpression();
+                else declaration();
+                break;
+            default:
+                if (roll < 15) lineComment();
+                else if (roll < 20) blockComment();
+                else if (roll < 40) declaration();
+                else if (roll < 60) output();
+                else if (roll < 70) loop();
+                else assignment();
+        }
+    }
+
+    private String name() {
+        return NAMES[random.nextInt(NAMES.length)];
+    }
+
+    private void lineComment() {
+        out.append("    ## Comment about ").append(name()).append(" and step ").append(random.nextInt(1000)).append('\n');
+    }
+
+    private void blockComment() {
+        out.append("    #* Block comment\n");
+        int lines = 1 + random.nextInt(4);
+        for (int i = 0; i < lines; i++) {
+            out.append("       describing ").append(name()).append(" = ").append(random.nextInt(100)).append('\n');
+        }
+        out.append("    *#\n");
+    }
+
+    private void declaration() {
+        out.append("    declare ").append(name()).append(" = ");
+        if (random.nextBoolean()) {
+            out.append(random.nextInt(10000));
+        } else {
+            out.append(random.nextInt(100)).append('.').append(random.nextInt(100));
+            if (random.nextInt(4) == 0) out.append("e").append(random.nextInt(10));
+        }
+        out.append(";\n");
+    }
+
+    private void output() {
+        out.append("    output \"Value of ").append(name()).append(" is: \\t\" + ").append(name()).append(";\n");
+        if (random.nextInt(3) == 0) out.append("    declare C = 'a';\n");
+    }
+
+    private void loop() {
+        out.append("    loop (").append(name()).append(" <= ").append(random.nextInt(50)).append(" && ")
+           .append(name()).append(" != 0) {\n        ").append(name()).append("++;\n    }\n");
+    }
+
+    private void assignment() {
+        out.append("    ").append(name()).append(" = ").append(name()).append(" * ")
+           .append(random.nextInt(10)).append(" + ").append(name()).append(" ** 2;\n");
+    }
+
+    private void identifierExpression() {
+        out.append("    ").append(name()).append(" = ").append(name());
+        int terms = 2 + random.nextInt(6);
+        for (int i = 0; i < terms; i++) out.append(" + ").append(name());
+        out.append(";\n");
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java src.CorpusGenerator <output file> <size in chars> [mixed|comment|string|identifier]");
+            return;
+        }
+        Mix mix = (args.length > 2) ? Mix.parse(args[2]) : Mix.MIXED;
+        String text = generate(Integer.parseInt(args[1]), mix, 42);
+        Files.write(Paths.get(args[0]), text.getBytes());
+        System.out.println("Wrote " + text.length() + " chars to " + args[0]);
+    }
+}
@@ -0,0 +1,305 @@
+/**
+ * DFA
+ * -------------------------
+ * A deterministic finite automaton held in flat arrays, the form that
+ * DFAMinimizer and the scanner generator work on. States are numbered from
+ * 0, the start state. Input code points are first mapped to symbols, the
+ * character classes of the alphabet (runs of code points that every state
+ * treats alike), so the transition table has one column per class rather
+ * than one per character: transitions[state * symbols + symbol] is the next
+ * state, or -1 where the automaton gets stuck. The accepting states are a
+ * BitSet; in a scanner's DFA each of them also has a kind, such as the
+ * token it accepts, and only states of the same kind may be merged.
+ */
+
+
+package src;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class DFA {
+    final int states;
+    final int symbols;
+    final int[] transitions;
+    final BitSet accepting;
+    final int[] kinds;          // Kind of each accepting state, or null if they all have kind 0
+    final int[] runStarts;      // Code points from runStarts[i] up to the next run start are
+    final int[] runSymbols;     // symbol runSymbols[i], or in no class if that is -1
+    private final int[] ascii = new int[128];
+
+    /**
+     * A DFA of states states over symbols classes. The runs map code points
+     * to classes: runStarts is ascending and starts at 0, and the last run
+     * goes up to Character.MAX_CODE_POINT.
+     */
+    public DFA(int states, int symbols, int[] transitions, BitSet accepting, int[] kinds,
+               int[] runStarts, int[] runSymbols) {
+        if (transitions.length != states * symbols) {
+            throw new IllegalArgumentException(transitions.length + " transitions for " + states + " states of " + symbols + " symbols");
+        }
+        if (kinds != null && kinds.length != states) {
+            throw new IllegalArgumentException(kinds.length + " kinds for " + states + " states");
+        }
+        if (runStarts.length == 0 || runStarts[0] != 0 || runStarts.length != runSymbols.length) {
+            throw new IllegalArgumentException("Runs must start at code point 0, one symbol per run");
+        }
+        this.states = states;
+        this.symbols = symbols;
+        this.transitions = transitions;
+        this.accepting = accepting;
+        this.kinds = kinds;
+        this.runStarts = runStarts;
+        this.runSymbols = runSymbols;
+        for (int c = 0; c < ascii.length; c++) ascii[c] = lookup(c);
+    }
+
+    public int states() { return states; }
+
+    public int symbols() { return symbols; }
+
+    /** The state after s on symbol, or -1. */
+    public int next(int s, int symbol) {
+        return transitions[s * symbols + symbol];
+    }
+
+    /** The symbol of a code point, or -1 if it is in no class. */
+    public int symbol(int codePoint) {
+        return codePoint < ascii.length ? ascii[codePoint] : lookup(codePoint);
+    }
+
+    private int lookup(int codePoint) {
+        int i = Arrays.binarySearch(runStarts, codePoint);
+        return runSymbols[i >= 0 ? i : -i - 2];
+    }
+
+    /** The state after s on a code point, or -1. */
+    public int step(int s, int codePoint) {
+        int symbol = symbol(codePoint);
+        return symbol < 0 ? -1 : next(s, symbol);
+    }
+
+    public boolean accepting(int s) {
+        return accepting.get(s);
+    }
+
+    /** What s accepts, or -1 if it does not accept. */
+    public int kind(int s) {
+        return !accepting.get(s) ? -1 : kinds == null ? 0 : kinds[s];
+    }
+
+    /** The code point ranges, as {first, last}, that make up a symbol. */
+    public List<int[]> ranges(int symbol) {
+        List<int[]> ranges = new ArrayList<>();
+        for (int i = 0; i < runStarts.length; i++) {
+            if (runSymbols[i] != symbol) continue;
+            int last = i + 1 < runStarts.length ? runStarts[i + 1] - 1 : Character.MAX_CODE_POINT;
+            ranges.add(new int[] {runStarts[i], last});
+        }
+        return ranges;
+    }
+
+    /** Whether the DFA, started in state 0, ends in an accepting state on text. */
+    public boolean matches(CharSequence text) {
+        int s = 0;
+        for (int i = 0; i < text.length() && s >= 0; ) {
+            int cp = Character.codePointAt(text, i);
+            s = step(s, cp);
+            i += Character.charCount(cp);
+        }
+        return s >= 0 && accepting(s);
+    }
+
+    /** This DFA with the accepting states given new kinds. */
+    public DFA withKinds(int[] kinds) {
+        return new DFA(states, symbols, transitions, accepting, kinds, runStarts, runSymbols);
+    }
+
+    /**
+     * The states reachable from the start state, numbered in breadth-first
+     * order, taking symbols in order.
+     */
+    public DFA reachable() {
+        int[] number = new int[states];
+        Arrays.fill(number, -1);
+        int[] order = new int[states];
+        number[0] = 0;
+        int count = 1;
+        for (int i = 0; i < count; i++) {
+            int s = order[i];
+            for (int k = 0; k < symbols; k++) {
+                int t = transitions[s * symbols + k];
+                if (t >= 0 && number[t] < 0) {
+                    number[t] = count;
+                    order[count++] = t;
+                }
+            }
+        }
+
+        int[] next = new int[count * symbols];
+        BitSet accepts = new BitSet(count);
+        int[] kinds = this.kinds == null ? null : new int[count];
+        for (int i = 0; i < count; i++) {
+            int s = order[i];
+            for (int k = 0; k < symbols; k++) {
+                int t = transitions[s * symbols + k];
+                next[i * symbols + k] = t < 0 ? -1 : number[t];
+            }
+            accepts.set(i, accepting.get(s));
+            if (kinds != null) kinds[i] = this.kinds[s];
+        }
+        return new DFA(count, symbols, next, accepts, kinds, runStarts, runSymbols);
+    }
+
+    /**
+     * The DFA with each group of states merged into one: block[s] is the group
+     * of s, groups numbered from 0 in the order of their first state, and the
+     * states of a group must be equivalent (as DFAMinimizer finds them).
+     */
+    DFA merge(int[] block) {
+        int count = 0;
+        for (int b : block) count = Math.max(count, b + 1);
+        int[] next = new int[count * symbols];
+        BitSet accepts = new BitSet(count);
+        int[] kinds = this.kinds == null ? null : new int[count];
+        for (int s = states - 1; s >= 0; s--) {
+            int b = block[s];
+            for (int k = 0; k < symbols; k++) {
+                int t = transitions[s * symbols + k];
+                next[b * symbols + k] = t < 0 ? -1 : block[t];
+            }
+            accepts.set(b, accepting.get(s));
+            if (kinds != null) kinds[b] = this.kinds[s];
+        }
+        return new DFA(count, symbols, next, accepts, kinds, runStarts, runSymbols);
+    }
+
+    /**
+     * The DFA with its alphabet compressed: symbols that lead every state to
+     * the same place become one class, numbered in order of first appearance.
+     */
+    public DFA compress() {
+        int[] merged = new int[symbols];
+        int count = 0;
+        Map<Integer, List<Integer>> byHash = new HashMap<>();
+        for (int k = 0; k < symbols; k++) {
+            int hash = 1;
+            for (int s = 0; s < states; s++) hash = 31 * hash + transitions[s * symbols + k];
+            List<Integer> same = byHash.get(hash);
+            if (same == null) {
+                same = new ArrayList<>();
+                byHash.put(hash, same);
+            }
+            merged[k] = -1;
+            for (int other : same) {
+                if (sameColumn(k, other)) {
+                    merged[k] = merged[other];
+                    break;
+                }
+            }
+            if (merged[k] < 0) {
+                merged[k] = count++;
+                same.add(k);
+            }
+        }
+        if (count == symbols) return this;
+
+        int[] next = new int[states * count];
+        for (int s = 0; s < states; s++) {
+            for (int k = 0; k < symbols; k++) next[s * count + merged[k]] = transitions[s * symbols + k];
+        }
+        // Runs that now have the same class are joined
+        int[] starts = new int[runStarts.length];
+        int[] classes = new int[runStarts.length];
+        int runs = 0;
+        for (int i = 0; i < runStarts.length; i++) {
+            int k = runSymbols[i] < 0 ? -1 : merged[runSymbols[i]];
+            if (runs > 0 && classes[runs - 1] == k) continue;
+            starts[runs] = runStarts[i];
+            classes[runs++] = k;
+        }
+        return new DFA(states, count, next, accepting, kinds,
+                       Arrays.copyOf(starts, runs), Arrays.copyOf(classes, runs));
+    }
+
+    private boolean sameColumn(int a, int b) {
+        for (int s = 0; s < states; s++) {
+            if (transitions[s * symbols + a] != transitions[s * symbols + b]) return false;
+        }
+        return true;
+    }
+
+    /** Size in bytes of what write() writes. */
+    int byteSize() {
+        return 4 * (5 + transitions.length + 2 * ((states + 63) / 64) + (kinds == null ? 0 : states) + 2 * runStarts.length);
+    }
+
+    /**
+     * Writes the DFA to out, in out's byte order: the counts, then the
+     * transitions, accepting states, kinds and runs, each in bulk.
+     */
+    void write(ByteBuffer out) {
+        long[] accepts = Arrays.copyOf(accepting.toLongArray(), (states + 63) / 64);
+        out.putInt(states).putInt(symbols).putInt(accepts.length).putInt(kinds == null ? 0 : 1).putInt(runStarts.length);
+        for (int[] table : new int[][] {transitions, kinds, runStarts, runSymbols}) {
+            if (table == null) continue;
+            out.asIntBuffer().put(table);
+            out.position(out.position() + 4 * table.length);
+        }
+        for (long word : accepts) out.putInt((int) word).putInt((int) (word >>> 32));
+    }
+
+    /** Reads a DFA written by write() from in. */
+    static DFA read(ByteBuffer in) {
+        int states = in.getInt();
+        int symbols = in.getInt();
+        long[] accepts = new long[in.getInt()];
+        int[] kinds = in.getInt() == 0 ? null : new int[states];
+        int runs = in.getInt();
+        int[] transitions = new int[states * symbols];
+        int[] runStarts = new int[runs];
+        int[] runSymbols = new int[runs];
+        for (int[] table : new int[][] {transitions, kinds, runStarts, runSymbols}) {
+            if (table == null) continue;
+            in.asIntBuffer().get(table);
+            in.position(in.position() + 4 * table.length);
+        }
+        for (int i = 0; i < accepts.length; i++) accepts[i] = in.getInt() & 0xFFFFFFFFL | (long) in.getInt() << 32;
+        return new DFA(states, symbols, transitions, BitSet.valueOf(accepts), kinds, runStarts, runSymbols);
+    }
+
+    /**
+     * The shortest input that leads from the start state to s, taking the
+     * lowest code point of each symbol, or null if s cannot be reached.
+     */
+    public String shortestInput(int s) {
+        int[] parent = new int[states];
+        int[] parentSymbol = new int[states];
+        Arrays.fill(parent, -2);
+        parent[0] = -1;
+        int[] queue = new int[states];
+        int count = 1;
+        for (int i = 0; i < count && parent[s] == -2; i++) {
+            int from = queue[i];
+            for (int k = 0; k < symbols; k++) {
+                int t = transitions[from * symbols + k];
+                if (t >= 0 && parent[t] == -2) {
+                    parent[t] = from;
+                    parentSymbol[t] = k;
+                    queue[count++] = t;
+                }
+            }
+        }
+        if (parent[s] == -2) return null;
+
+        StringBuilder sb = new StringBuilder();
+        for (int t = s; parent[t] >= 0; t = parent[t]) sb.appendCodePoint(ranges(parentSymbol[t]).get(0)[0]);
+        // Code points were appended last first; reversing keeps surrogate pairs intact
+        return sb.reverse().toString();
+    }
+}
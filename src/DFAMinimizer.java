@@ -1,21 +1,35 @@
 package src;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
 
 /**
  * BONUS TASK 4: DFA Minimization Algorithm
- * Implements Moore's Algorithm (Partition Refinement)
+ * Implements Hopcroft's Algorithm (Partition Refinement)
  */
 
 /**
  * DFAMinimizer
  * -------------------------
- * Implements DFA minimization using Moore's partition refinement algorithm.
+ * Implements DFA minimization using Hopcroft's partition refinement algorithm.
  * A sample DFA containing redundant states is constructed, after which states
- * are repeatedly grouped and split based on transition behavior until no further
+ * are grouped and split based on transition behavior until no further
  * refinement is possible. States with identical transition patterns are merged,
  * producing minimized DFA partitions while preserving language acceptance.
- * The program then prints original states and resulting minimized groups.
+ * The program then prints original states and resulting minimized groups,
+ * and builds the same language from its regex through NFA and DFA.
+ *
+ * The refinement itself runs over int states: a block index per state, the
+ * states of each block kept contiguous in one array, and a worklist of
+ * (block, symbol) splitters, which takes O(k n log n) time for n states and
+ * k symbols. Moore's round-by-round refinement, which this replaced, is kept
+ * as minimizeMoore for comparison in MinimizerBenchmark. minimize(DFA) takes
+ * and returns the flat-array DFA model directly. Given a ForkJoinPool,
+ * minimize refines round by round instead, with the work of each round
+ * spread over the pool; the result is the same.
  */
 
 public class DFAMinimizer {
@@ -73,22 +87,371 @@ public class DFAMinimizer {
             for (State s : partitions.get(i)) System.out.print(s + " ");
             System.out.println("}");
         }
+
+        // --- 4. THE SAME LANGUAGE, FROM ITS REGEX ---
+        System.out.println("\n--- From the Regex (a|b)*abb ---");
+        NFA nfa = new NFA();
+        nfa.add("(a|b)*abb", new HashMap<>());
+        DFA subset = nfa.toDFA();
+        DFA minimal = minimize(subset);
+        System.out.println("Thompson NFA: " + nfa.states() + " states");
+        System.out.println("Subset construction: " + subset.states() + " states");
+        System.out.println("Minimized: " + minimal.states() + " states");
     }
 
     // --- THE ALGORITHM ---
     public static List<Set<State>> minimize(List<State> states, Set<Character> alphabet) {
-        // Step 1: Initial Partition -> {Non-Final States}, {Final States}
-        Set<State> finalStates = new HashSet<>();
-        Set<State> nonFinalStates = new HashSet<>();
-        
-        for (State s : states) {
-            if (s.isFinal) finalStates.add(s);
-            else nonFinalStates.add(s);
+        // Initial Partition -> {Non-Final States}, {Final States}
+        return minimize(states, alphabet, s -> s.isFinal);
+    }
+
+    /**
+     * Minimizes a DFA whose final states accept different things, such as the
+     * token types of a scanner: states start in the same group only when kind
+     * maps them to equal values, so merged states always accept alike.
+     */
+    public static List<Set<State>> minimize(List<State> states, Set<Character> alphabet, Function<State, ?> kind) {
+        // Step 1: Number the states, symbols and kinds
+        int n = states.size();
+        Map<State, Integer> index = new IdentityHashMap<>();
+        for (int s = 0; s < n; s++) index.put(states.get(s), s);
+        List<Character> symbols = new ArrayList<>(alphabet);
+        int k = symbols.size();
+        int[] transitions = new int[n * k];
+        int[] kinds = new int[n];
+        Map<Object, Integer> kindIds = new HashMap<>();
+        for (int s = 0; s < n; s++) {
+            State state = states.get(s);
+            for (int c = 0; c < k; c++) {
+                Integer target = index.get(state.transitions.get(symbols.get(c)));
+                transitions[s * k + c] = target == null ? -1 : target;
+            }
+            kinds[s] = kindIds.computeIfAbsent(kind.apply(state), x -> kindIds.size());
         }
 
+        // Step 2: Refine, then collect each block's states
+        int[] block = minimize(transitions, k, kinds);
         List<Set<State>> partitions = new ArrayList<>();
-        if (!nonFinalStates.isEmpty()) partitions.add(nonFinalStates);
-        if (!finalStates.isEmpty()) partitions.add(finalStates);
+        for (int s = 0; s < n; s++) {
+            if (block[s] == partitions.size()) partitions.add(new LinkedHashSet<>());
+            partitions.get(block[s]).add(states.get(s));
+        }
+        return partitions;
+    }
+
+    /**
+     * The minimal DFA that accepts what dfa accepts: states of the same kind
+     * that no input tells apart are merged, states that cannot be reached are
+     * dropped, and the rest are numbered breadth-first from the start state.
+     */
+    public static DFA minimize(DFA dfa) {
+        DFA reachable = dfa.reachable();
+        int[] kinds = new int[reachable.states];
+        for (int s = 0; s < kinds.length; s++) kinds[s] = reachable.kind(s);
+        return reachable.merge(minimize(reachable.transitions, reachable.symbols, kinds)).reachable();
+    }
+
+    /**
+     * Hopcroft's algorithm over states 0..kinds.length-1 and symbols
+     * 0..symbols-1, where transitions[s * symbols + c] is the target of s on c,
+     * or -1 if there is none. States start in one block per kind value, and a
+     * missing transition counts as a move to a state of its own. Returns the
+     * block of each state, blocks numbered in the order of their first state.
+     */
+    public static int[] minimize(int[] transitions, int symbols, int[] kinds) {
+        int n = kinds.length;
+        int edges = n * symbols;
+        boolean partial = false;
+        for (int e = 0; e < edges && !partial; e++) partial = transitions[e] < 0;
+        int states = partial ? n + 1 : n;   // State n is the sink that missing transitions go to
+
+        // Predecessors of t on c are preds[predStart[t * symbols + c] .. predStart[t * symbols + c + 1])
+        int[] predStart = new int[states * symbols + 1];
+        for (int e = 0; e < edges; e++) predStart[target(transitions, e, n) * symbols + e % symbols]++;
+        for (int i = 1; i < predStart.length; i++) predStart[i] += predStart[i - 1];
+        int[] preds = new int[edges];
+        for (int e = edges - 1; e >= 0; e--) preds[--predStart[target(transitions, e, n) * symbols + e % symbols]] = e / symbols;
+
+        // The states of block b are elements[first[b] .. end[b]); while a splitter
+        // is applied, the ones it reaches are moved to the front, up to marked[b]
+        int[] elements = new int[states];
+        int[] location = new int[states];
+        int[] blockOf = new int[states];
+        int[] first = new int[states];
+        int[] end = new int[states];
+        int[] marked = new int[states];
+        Map<Integer, Integer> kindBlocks = new HashMap<>();
+        for (int s = 0; s < n; s++) {
+            blockOf[s] = kindBlock(kindBlocks, kinds[s]);
+            end[blockOf[s]]++;
+        }
+        int blocks = kindBlocks.size();
+        if (partial) {
+            blockOf[n] = blocks;
+            end[blocks++] = 1;
+        }
+        for (int b = 0, at = 0; b < blocks; b++) {
+            first[b] = marked[b] = at;
+            at += end[b];
+            end[b] = first[b];
+        }
+        for (int s = 0; s < states; s++) {
+            int at = end[blockOf[s]]++;
+            elements[at] = s;
+            location[s] = at;
+        }
+
+        // Every block but a largest one splits the others on every symbol
+        int[] work = new int[Math.max(16, 2 * blocks * symbols)];
+        int pending = 0;
+        int largest = 0;
+        for (int b = 1; b < blocks; b++) {
+            if (end[b] - first[b] > end[largest] - first[largest]) largest = b;
+        }
+        for (int b = 0; b < blocks; b++) {
+            if (b == largest) continue;
+            for (int c = 0; c < symbols; c++) {
+                work[pending++] = b;
+                work[pending++] = c;
+            }
+        }
+
+        int[] splitter = new int[states];
+        int[] touched = new int[states];
+        while (pending > 0) {
+            int c = work[--pending];
+            int b = work[--pending];
+            int size = end[b] - first[b];
+            System.arraycopy(elements, first[b], splitter, 0, size);
+
+            // Mark the states that move into b on c
+            int touchedCount = 0;
+            for (int i = 0; i < size; i++) {
+                int from = splitter[i] * symbols + c;
+                for (int j = predStart[from]; j < predStart[from + 1]; j++) {
+                    int p = preds[j];
+                    int pb = blockOf[p];
+                    int at = location[p];
+                    if (at < marked[pb]) continue;
+                    if (marked[pb] == first[pb]) touched[touchedCount++] = pb;
+                    int other = elements[marked[pb]];
+                    elements[at] = other;
+                    location[other] = at;
+                    elements[marked[pb]] = p;
+                    location[p] = marked[pb]++;
+                }
+            }
+
+            // Split the blocks that were only partly marked; the smaller part
+            // becomes the new block, and splits the others on every symbol
+            for (int i = 0; i < touchedCount; i++) {
+                int pb = touched[i];
+                int middle = marked[pb];
+                if (middle == end[pb]) {
+                    marked[pb] = first[pb];
+                    continue;
+                }
+                int nb = blocks++;
+                if (middle - first[pb] <= end[pb] - middle) {
+                    first[nb] = first[pb];
+                    end[nb] = middle;
+                    first[pb] = middle;
+                } else {
+                    first[nb] = middle;
+                    end[nb] = end[pb];
+                    end[pb] = middle;
+                }
+                marked[pb] = first[pb];
+                marked[nb] = first[nb];
+                for (int j = first[nb]; j < end[nb]; j++) blockOf[elements[j]] = nb;
+                if (pending + 2 * symbols > work.length) {
+                    work = Arrays.copyOf(work, Math.max(work.length * 2, pending + 2 * symbols));
+                }
+                for (int a = 0; a < symbols; a++) {
+                    work[pending++] = nb;
+                    work[pending++] = a;
+                }
+            }
+        }
+
+        // Number the blocks in the order of their first state
+        int[] number = new int[blocks];
+        Arrays.fill(number, -1);
+        int[] result = new int[n];
+        int count = 0;
+        for (int s = 0; s < n; s++) {
+            if (number[blockOf[s]] < 0) number[blockOf[s]] = count++;
+            result[s] = number[blockOf[s]];
+        }
+        return result;
+    }
+
+    /** minimize(dfa), refining on pool. */
+    public static DFA minimize(DFA dfa, ForkJoinPool pool) {
+        DFA reachable = dfa.reachable();
+        int[] kinds = new int[reachable.states];
+        for (int s = 0; s < kinds.length; s++) kinds[s] = reachable.kind(s);
+        return reachable.merge(minimize(reachable.transitions, reachable.symbols, kinds, pool)).reachable();
+    }
+
+    /**
+     * minimize(transitions, symbols, kinds), run on pool, with the same
+     * result. Each round gives every state a signature, its block and the
+     * blocks its transitions lead to, and makes each distinct signature a
+     * block, until a round splits nothing. Within a round the signatures are
+     * hashed, the states grouped by hash, and the first state of each
+     * signature found, all in parallel; only numbering the new blocks in the
+     * order of their first state is sequential. That takes as many rounds as
+     * the longest input that tells two states apart, which is few for most
+     * automata but up to n for a long chain, where the sequential minimize is
+     * the better choice.
+     */
+    public static int[] minimize(int[] transitions, int symbols, int[] kinds, ForkJoinPool pool) {
+        int n = kinds.length;
+        int parts = Math.max(1, Math.min(4 * pool.getParallelism(), n / 4096));
+
+        int[] block = new int[n];
+        Map<Integer, Integer> kindBlocks = new HashMap<>();
+        for (int s = 0; s < n; s++) block[s] = kindBlock(kindBlocks, kinds[s]);
+        int blocks = kindBlocks.size();
+
+        int[] next = new int[n];
+        int[] hash = new int[n];
+        int[] order = new int[n];       // States grouped by the part their hash falls in
+        int[] first = new int[n];       // The first state with the same signature
+        int[] counts = new int[parts * parts];
+        int[] bucketStart = new int[parts + 1];
+        while (true) {
+            int[] current = block;
+
+            // Hash the signatures, counting how many of each chunk fall in each part
+            inParallel(pool, parts, i -> {
+                Arrays.fill(counts, i * parts, (i + 1) * parts, 0);
+                for (int s = chunk(n, parts, i), to = chunk(n, parts, i + 1); s < to; s++) {
+                    hash[s] = signatureHash(transitions, symbols, current, s);
+                    counts[i * parts + part(hash[s], parts)]++;
+                }
+            });
+            int at = 0;
+            for (int b = 0; b < parts; b++) {
+                bucketStart[b] = at;
+                for (int i = 0; i < parts; i++) {
+                    int count = counts[i * parts + b];
+                    counts[i * parts + b] = at;
+                    at += count;
+                }
+            }
+            bucketStart[parts] = n;
+            inParallel(pool, parts, i -> {
+                for (int s = chunk(n, parts, i), to = chunk(n, parts, i + 1); s < to; s++) {
+                    order[counts[i * parts + part(hash[s], parts)]++] = s;
+                }
+            });
+
+            // Each part keeps the states of its hashes in state order, so the
+            // first state it sees with a signature is the first overall
+            inParallel(pool, parts, b -> {
+                int size = bucketStart[b + 1] - bucketStart[b];
+                int[] table = new int[Integer.highestOneBit(Math.max(8, size)) * 4];
+                int mask = table.length - 1;
+                for (int j = bucketStart[b]; j < bucketStart[b + 1]; j++) {
+                    int s = order[j];
+                    int slot = hash[s] & mask;
+                    while (true) {
+                        int r = table[slot] - 1;
+                        if (r < 0) {
+                            table[slot] = s + 1;
+                            first[s] = s;
+                            break;
+                        }
+                        if (hash[r] == hash[s] && sameSignature(transitions, symbols, current, r, s)) {
+                            first[s] = r;
+                            break;
+                        }
+                        slot = (slot + 1) & mask;
+                    }
+                }
+            });
+
+            int count = 0;
+            for (int s = 0; s < n; s++) next[s] = first[s] == s ? count++ : next[first[s]];
+            int[] swap = block;
+            block = next;
+            next = swap;
+            if (count == blocks) return block;
+            blocks = count;
+        }
+    }
+
+    // The block of a kind, numbering kinds in the order they are first seen
+    private static int kindBlock(Map<Integer, Integer> kindBlocks, int kind) {
+        Integer block = kindBlocks.get(kind);
+        if (block == null) {
+            block = kindBlocks.size();
+            kindBlocks.put(kind, block);
+        }
+        return block;
+    }
+
+    private static int signatureHash(int[] transitions, int symbols, int[] block, int s) {
+        int h = block[s];
+        for (int c = 0, e = s * symbols; c < symbols; c++, e++) {
+            h = h * 0x9e3779b1 + (transitions[e] < 0 ? -1 : block[transitions[e]]);
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean sameSignature(int[] transitions, int symbols, int[] block, int a, int b) {
+        if (block[a] != block[b]) return false;
+        for (int c = 0; c < symbols; c++) {
+            int ta = transitions[a * symbols + c];
+            int tb = transitions[b * symbols + c];
+            if ((ta < 0 ? -1 : block[ta]) != (tb < 0 ? -1 : block[tb])) return false;
+        }
+        return true;
+    }
+
+    // The part of a hash by its high bits; the tables use the low ones
+    private static int part(int hash, int parts) {
+        return (int) (((hash & 0xffffffffL) * parts) >>> 32);
+    }
+
+    private static int chunk(int n, int parts, int i) {
+        return (int) ((long) n * i / parts);
+    }
+
+    private static void inParallel(ForkJoinPool pool, int parts, IntConsumer part) {
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (int i = 0; i < parts; i++) {
+            int index = i;
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() { part.accept(index); }
+            });
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() { invokeAll(tasks); }
+        });
+    }
+
+    private static int target(int[] transitions, int edge, int sink) {
+        return transitions[edge] < 0 ? sink : transitions[edge];
+    }
+
+    // Moore's algorithm: split every group by the groups its transitions lead
+    // to, round after round, until a round changes nothing
+    static List<Set<State>> minimizeMoore(List<State> states, Set<Character> alphabet, Function<State, ?> kind) {
+        // Step 1: Initial Partition -> one group per kind, in order of first appearance
+        Map<Object, Set<State>> initial = new LinkedHashMap<>();
+        for (State s : states) {
+            initial.computeIfAbsent(kind.apply(s), k -> new HashSet<>()).add(s);
+        }
+        List<Set<State>> partitions = new ArrayList<>(initial.values());
 
         boolean changed = true;
         while (changed) {
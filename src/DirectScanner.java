@@ -0,0 +1,1058 @@
+/**
+ * DirectScanner
+ * -------------------------
+ * GENERATED by DirectScannerGenerator from the DFA of Yylex; do not edit.
+ * Run java src.DirectScannerGenerator after changing Scanner.flex.
+ *
+ * Scans in-memory text into the same tokens as Yylex, with the DFA written
+ * out as code: 156 states (157 before minimization), 51 character classes.
+ * Text that no rule matches is an ERROR token, as in Yylex, but is not
+ * printed. Lines and columns count from 1, columns in chars.
+ */
+
+
+package src;
+
+import java.io.IOException;
+
+public final class DirectScanner {
+    // Token type of each accepting kind; null for text that is skipped
+    private static final TokenType[] TYPES = {
+        TokenType.ERROR,
+        null,
+        TokenType.LOGICAL_OP,
+        TokenType.ARITHMETIC_OP,
+        TokenType.LPAREN,
+        TokenType.RPAREN,
+        TokenType.COMMA,
+        TokenType.INTEGER,
+        TokenType.COLON,
+        TokenType.SEMICOLON,
+        TokenType.RELATIONAL_OP,
+        TokenType.ASSIGNMENT_OP,
+        TokenType.IDENTIFIER,
+        TokenType.LBRACKET,
+        TokenType.RBRACKET,
+        TokenType.LBRACE,
+        TokenType.RBRACE,
+        TokenType.STRING,
+        TokenType.INC_DEC_OP,
+        TokenType.CHAR,
+        TokenType.FLOAT,
+        TokenType.ELSE,
+        TokenType.LOOP,
+        TokenType.BOOLEAN,
+        TokenType.BREAK,
+        TokenType.INPUT,
+        TokenType.START,
+        TokenType.FINISH,
+        TokenType.OUTPUT,
+        TokenType.RETURN,
+        TokenType.DECLARE,
+        TokenType.CONTINUE,
+        TokenType.FUNCTION,
+        TokenType.CONDITION
+    };
+
+    private char[] buf;
+    private int base;           // Index in buf of the start of the text
+    private int end;
+    private int pos;            // Next char to scan
+    private int line;           // Line of pos
+    private int lineStart;      // Index in buf of the first char of that line
+
+    private TokenType tokenType;
+    private int tokenStart;
+    private int tokenLength;
+    private int tokenLine;
+    private int tokenCol;
+
+    /** Creates a scanner over source[offset, offset + length), which is not copied. */
+    public DirectScanner(char[] source, int offset, int length) {
+        reset(source, offset, length);
+    }
+
+    public DirectScanner(CharSequence source) {
+        reset(source);
+    }
+
+    /** Starts over on source[offset, offset + length); offsets count from offset. */
+    public void reset(char[] source, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > source.length) {
+            throw new IndexOutOfBoundsException("Range " + offset + "+" + length + " of " + source.length);
+        }
+        buf = source;
+        base = offset;
+        end = offset + length;
+        pos = offset;
+        line = 1;
+        lineStart = offset;
+        tokenType = null;
+    }
+
+    public void reset(CharSequence source) {
+        char[] chars = source.toString().toCharArray();
+        reset(chars, 0, chars.length);
+    }
+
+    /**
+     * Scans the next token. The token is described by type(), startOffset(),
+     * length(), line() and column() until the next call.
+     */
+    public TokenType next() {
+        char[] b = buf;
+        int e = end;
+        while (true) {
+            int start = pos;
+            tokenStart = start;
+            tokenLine = line;
+            tokenCol = start - lineStart + 1;
+            if (start >= e) {
+                tokenType = TokenType.EOF;
+                tokenLength = 0;
+                return TokenType.EOF;
+            }
+            int p = start;
+            int kind = -1;
+            int accepted = start;
+            int state = 0;
+            int c;
+            dfa:
+            while (true) {
+                switch (state) {
+                    case 0:
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c >= 0xD800 && c < 0xDC00) c = codePoint(b, p, e);
+                        if (c < 128) {
+                            switch (c) {
+                                case 0x0009: case 0x000A: case 0x000C: case ' ':
+                                    p += Character.charCount(c);
+                                    state = 2;
+                                    continue dfa;
+                                case 0x000B:
+                                    break dfa;
+                                case 0x000D:
+                                    p += Character.charCount(c);
+                                    state = 3;
+                                    continue dfa;
+                                case '!':
+                                    p += Character.charCount(c);
+                                    state = 4;
+                                    continue dfa;
+                                case '"':
+                                    p += Character.charCount(c);
+                                    state = 5;
+                                    continue dfa;
+                                case '#':
+                                    p += Character.charCount(c);
+                                    state = 6;
+                                    continue dfa;
+                                case '%':
+                                    p += Character.charCount(c);
+                                    state = 7;
+                                    continue dfa;
+                                case '&':
+                                    p += Character.charCount(c);
+                                    state = 8;
+                                    continue dfa;
+                                case '\'':
+                                    p += Character.charCount(c);
+                                    state = 9;
+                                    continue dfa;
+                                case '(':
+                                    p += Character.charCount(c);
+                                    state = 10;
+                                    continue dfa;
+                                case ')':
+                                    p += Character.charCount(c);
+                                    state = 11;
+                                    continue dfa;
+                                case '*':
+                                    p += Character.charCount(c);
+                                    state = 12;
+                                    continue dfa;
+                                case '+':
+                                    p += Character.charCount(c);
+                                    state = 13;
+                                    continue dfa;
+                                case ',':
+                                    p += Character.charCount(c);
+                                    state = 14;
+                                    continue dfa;
+                                case '-':
+                                    p += Character.charCount(c);
+                                    state = 15;
+                                    continue dfa;
+                                case '/':
+                                    p += Character.charCount(c);
+                                    state = 16;
+                                    continue dfa;
+                                case '0': case '1': case '2': case '3': case '4': case '5': case '6': case '7':
+                                case '8': case '9':
+                                    p += Character.charCount(c);
+                                    state = 17;
+                                    continue dfa;
+                                case ':':
+                                    p += Character.charCount(c);
+                                    state = 18;
+                                    continue dfa;
+                                case ';':
+                                    p += Character.charCount(c);
+                                    state = 19;
+                                    continue dfa;
+                                case '<': case '>':
+                                    p += Character.charCount(c);
+                                    state = 20;
+                                    continue dfa;
+                                case '=':
+                                    p += Character.charCount(c);
+                                    state = 21;
+                                    continue dfa;
+                                case 'A': case 'B': case 'C': case 'D': case 'E': case 'F': case 'G': case 'H':
+                                case 'I': case 'J': case 'K': case 'L': case 'M': case 'N': case 'O': case 'P':
+                                case 'Q': case 'R': case 'S': case 'T': case 'U': case 'V': case 'W': case 'X':
+                                case 'Y': case 'Z':
+                                    p += Character.charCount(c);
+                                    state = 22;
+                                    continue dfa;
+                                case '[':
+                                    p += Character.charCount(c);
+                                    state = 23;
+                                    continue dfa;
+                                case ']':
+                                    p += Character.charCount(c);
+                                    state = 24;
+                                    continue dfa;
+                                case 'b':
+                                    p += Character.charCount(c);
+                                    state = 25;
+                                    continue dfa;
+                                case 'c':
+                                    p += Character.charCount(c);
+                                    state = 26;
+                                    continue dfa;
+                                case 'd':
+                                    p += Character.charCount(c);
+                                    state = 27;
+                                    continue dfa;
+                                case 'e':
+                                    p += Character.charCount(c);
+                                    state = 28;
+                                    continue dfa;
+                                case 'f':
+                                    p += Character.charCount(c);
+                                    state = 29;
+                                    continue dfa;
+                                case 'i':
+                                    p += Character.charCount(c);
+                                    state = 30;
+                                    continue dfa;
+                                case 'l':
+                                    p += Character.charCount(c);
+                                    state = 31;
+                                    continue dfa;
+                                case 'o':
+                                    p += Character.charCount(c);
+                                    state = 32;
+                                    continue dfa;
+                                case 'r':
+                                    p += Character.charCount(c);
+                                    state = 33;
+                                    continue dfa;
+                                case 's':
+                                    p += Character.charCount(c);
+                                    state = 34;
+                                    continue dfa;
+                                case 't':
+                                    p += Character.charCount(c);
+                                    state = 35;
+                                    continue dfa;
+                                case '{':
+                                    p += Character.charCount(c);
+                                    state = 36;
+                                    continue dfa;
+                                case '|':
+                                    p += Character.charCount(c);
+                                    state = 37;
+                                    continue dfa;
+                                case '}':
+                                    p += Character.charCount(c);
+                                    state = 38;
+                                    continue dfa;
+                            }
+                            p += Character.charCount(c);
+                            state = 1;
+                            continue dfa;
+                        }
+                        if (c == 0x0085 || (c >= 0x2028 && c <= 0x2029) || (c >= 0xD800 && c <= 0xDFFF)) {
+                            break dfa;
+                        }
+                        p += Character.charCount(c);
+                        state = 1;
+                        continue dfa;
+                    case 1:   // ERROR
+                        kind = 0;
+                        accepted = p;
+                        break dfa;
+                    case 2:   // Skipped text
+                        kind = 1;
+                        accepted = p;
+                        break dfa;
+                    case 3:   // Skipped text
+                        kind = 1;
+                        accepted = p;
+                        if (e - p >= 1 && b[p] == 0x000A) {
+                            p += 1;
+                            state = 2;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 4:   // LOGICAL_OP
+                        kind = 2;
+                        accepted = p;
+                        if (e - p >= 1 && b[p] == '=') {
+                            p += 1;
+                            state = 39;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 5:   // ERROR
+                        kind = 0;
+                        accepted = p;
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c >= 0xD800 && c < 0xDC00) c = codePoint(b, p, e);
+                        if (c == '"') {
+                            p += Character.charCount(c);
+                            state = 41;
+                            continue dfa;
+                        }
+                        if (c == '\\') {
+                            p += Character.charCount(c);
+                            state = 42;
+                            continue dfa;
+                        }
+                        p += Character.charCount(c);
+                        state = 40;
+                        continue dfa;
+                    case 6:   // ERROR
+                        kind = 0;
+                        accepted = p;
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c == '#') {
+                            p++;
+                            state = 43;
+                            continue dfa;
+                        }
+                        if (c == '*') {
+                            p++;
+                            state = 44;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 7:   // ARITHMETIC_OP
+                        kind = 3;
+                        accepted = p;
+                        break dfa;
+                    case 8:   // ERROR
+                        kind = 0;
+                        accepted = p;
+                        if (e - p >= 1 && b[p] == '&') {
+                            p += 1;
+                            state = 45;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 9:   // ERROR
+                        kind = 0;
+                        accepted = p;
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c >= 0xD800 && c < 0xDC00) c = codePoint(b, p, e);
+                        if (c == '\'') {
+                            break dfa;
+                        }
+                        if (c == '\\') {
+                            p += Character.charCount(c);
+                            state = 47;
+                            continue dfa;
+                        }
+                        p += Character.charCount(c);
+                        state = 46;
+                        continue dfa;
+                    case 10:   // LPAREN
+                        kind = 4;
+                        accepted = p;
+                        break dfa;
+                    case 11:   // RPAREN
+                        kind = 5;
+                        accepted = p;
+                        break dfa;
+                    case 12:   // ARITHMETIC_OP
+                        kind = 3;
+                        accepted = p;
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c == '*') {
+                            p++;
+                            state = 7;
+                            continue dfa;
+                        }
+                        if (c == '=') {
+                            p++;
+                            state = 48;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 13:   // ARITHMETIC_OP
+                        kind = 3;
+                        accepted = p;
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c == '+') {
+                            p++;
+                            state = 49;
+                            continue dfa;
+                        }
+                        if (c >= '0' && c <= '9') {
+                            p++;
+                            state = 17;
+                            continue dfa;
+                        }
+                        if (c == '=') {
+                            p++;
+                            state = 48;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 14:   // COMMA
+                        kind = 6;
+                        accepted = p;
+                        break dfa;
+                    case 15:   // ARITHMETIC_OP
+                        kind = 3;
+                        accepted = p;
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c == '-') {
+                            p++;
+                            state = 49;
+                            continue dfa;
+                        }
+                        if (c >= '0' && c <= '9') {
+                            p++;
+                            state = 17;
+                            continue dfa;
+                        }
+                        if (c == '=') {
+                            p++;
+                            state = 48;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 16:   // ARITHMETIC_OP
+                        kind = 3;
+                        accepted = p;
+                        if (e - p >= 1 && b[p] == '=') {
+                            p += 1;
+                            state = 48;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 17:   // INTEGER
+                        kind = 7;
+                        accepted = p;
+                        while (p < e) {
+                            c = b[p];
+                            if (!(c >= '0' && c <= '9')) break;
+                            p++;
+                        }
+                        accepted = p;
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c == '.') {
+                            p++;
+                            state = 50;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 18:   // COLON
+                        kind = 8;
+                        accepted = p;
+                        break dfa;
+                    case 19:   // SEMICOLON
+                        kind = 9;
+                        accepted = p;
+                        break dfa;
+                    case 20:   // RELATIONAL_OP
+                        kind = 10;
+                        accepted = p;
+                        if (e - p >= 1 && b[p] == '=') {
+                            p += 1;
+                            state = 39;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 21:   // ASSIGNMENT_OP
+                        kind = 11;
+                        accepted = p;
+                        if (e - p >= 1 && b[p] == '=') {
+                            p += 1;
+                            state = 39;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 22:   // IDENTIFIER
+                        kind = 12;
+                        accepted = p;
+                        {
+                            int limit = e - p < 30 ? e : p + 30;
+                            while (p < limit) {
+                                c = b[p];
+                                if (!((c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || c == '_' || (c >= 'a' && c <= 'z'))) break;
+                                p++;
+                            }
+                            accepted = p;
+                            break dfa;
+                        }
+                    case 23:   // LBRACKET
+                        kind = 13;
+                        accepted = p;
+                        break dfa;
+                    case 24:   // RBRACKET
+                        kind = 14;
+                        accepted = p;
+                        break dfa;
+                    case 25:   // ERROR
+                        kind = 0;
+                        accepted = p;
+                        if (e - p >= 4 && b[p] == 'r' && b[p + 1] == 'e' && b[p + 2] == 'a' && b[p + 3] == 'k') {
+                            p += 4;
+                            state = 102;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 26:   // ERROR
+                        kind = 0;
+                        accepted = p;
+                        if (e - p >= 2 && b[p] == 'o' && b[p + 1] == 'n') {
+                            p += 2;
+                            state = 70;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 27:   // ERROR
+                        kind = 0;
+                        accepted = p;
+                        if (e - p >= 6 && b[p] == 'e' && b[p + 1] == 'c' && b[p + 2] == 'l' && b[p + 3] == 'a' && b[p + 4] == 'r' && b[p + 5] == 'e') {
+                            p += 6;
+                            state = 125;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 28:   // ERROR
+                        kind = 0;
+                        accepted = p;
+                        if (e - p >= 3 && b[p] == 'l' && b[p + 1] == 's' && b[p + 2] == 'e') {
+                            p += 3;
+                            state = 89;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 29:   // ERROR
+                        kind = 0;
+                        accepted = p;
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c == 'a') {
+                            p++;
+                            state = 56;
+                            continue dfa;
+                        }
+                        if (c == 'i') {
+                            p++;
+                            state = 57;
+                            continue dfa;
+                        }
+                        if (c == 'u') {
+                            p++;
+                            state = 58;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 30:   // ERROR
+                        kind = 0;
+                        accepted = p;
+                        if (e - p >= 4 && b[p] == 'n' && b[p + 1] == 'p' && b[p + 2] == 'u' && b[p + 3] == 't') {
+                            p += 4;
+                            state = 108;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 31:   // ERROR
+                        kind = 0;
+                        accepted = p;
+                        if (e - p >= 3 && b[p] == 'o' && b[p + 1] == 'o' && b[p + 2] == 'p') {
+                            p += 3;
+                            state = 93;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 32:   // ERROR
+                        kind = 0;
+                        accepted = p;
+                        if (e - p >= 5 && b[p] == 'u' && b[p + 1] == 't' && b[p + 2] == 'p' && b[p + 3] == 'u' && b[p + 4] == 't') {
+                            p += 5;
+                            state = 119;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 33:   // ERROR
+                        kind = 0;
+                        accepted = p;
+                        if (e - p >= 5 && b[p] == 'e' && b[p + 1] == 't' && b[p + 2] == 'u' && b[p + 3] == 'r' && b[p + 4] == 'n') {
+                            p += 5;
+                            state = 120;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 34:   // ERROR
+                        kind = 0;
+                        accepted = p;
+                        if (e - p >= 4 && b[p] == 't' && b[p + 1] == 'a' && b[p + 2] == 'r' && b[p + 3] == 't') {
+                            p += 4;
+                            state = 111;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 35:   // ERROR
+                        kind = 0;
+                        accepted = p;
+                        if (e - p >= 2 && b[p] == 'r' && b[p + 1] == 'u') {
+                            p += 2;
+                            state = 81;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 36:   // LBRACE
+                        kind = 15;
+                        accepted = p;
+                        break dfa;
+                    case 37:   // ERROR
+                        kind = 0;
+                        accepted = p;
+                        if (e - p >= 1 && b[p] == '|') {
+                            p += 1;
+                            state = 45;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 38:   // RBRACE
+                        kind = 16;
+                        accepted = p;
+                        break dfa;
+                    case 39:   // RELATIONAL_OP
+                        kind = 10;
+                        accepted = p;
+                        break dfa;
+                    case 40:
+                        while (p < e) {
+                            c = b[p];
+                            if (!(!(c == '"' || c == '\\'))) break;
+                            p++;
+                        }
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c == '\\') {
+                            p++;
+                            state = 42;
+                            continue dfa;
+                        }
+                        p++;
+                        state = 41;
+                        continue dfa;
+                    case 41:   // STRING
+                        kind = 17;
+                        accepted = p;
+                        break dfa;
+                    case 42:
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c >= 0xD800 && c < 0xDC00) c = codePoint(b, p, e);
+                        if ((c >= 0x000A && c <= 0x000D) || c == 0x0085 || (c >= 0x2028 && c <= 0x2029) || (c >= 0xD800 && c <= 0xDFFF)) {
+                            break dfa;
+                        }
+                        p += Character.charCount(c);
+                        state = 40;
+                        continue dfa;
+                    case 43:   // Skipped text
+                        kind = 1;
+                        accepted = p;
+                        while (p < e) {
+                            c = b[p];
+                            if (!(!(c == 0x000A || c == 0x000D))) break;
+                            p++;
+                        }
+                        accepted = p;
+                        break dfa;
+                    case 44:
+                        while (p < e) {
+                            c = b[p];
+                            if (!(!(c == '*'))) break;
+                            p++;
+                        }
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        p++;
+                        state = 65;
+                        continue dfa;
+                    case 45:   // LOGICAL_OP
+                        kind = 2;
+                        accepted = p;
+                        break dfa;
+                    case 46:
+                        if (e - p >= 1 && b[p] == '\'') {
+                            p += 1;
+                            state = 66;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 47:
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c >= 0xD800 && c < 0xDC00) c = codePoint(b, p, e);
+                        if ((c >= 0x000A && c <= 0x000D) || c == 0x0085 || (c >= 0x2028 && c <= 0x2029) || (c >= 0xD800 && c <= 0xDFFF)) {
+                            break dfa;
+                        }
+                        p += Character.charCount(c);
+                        state = 46;
+                        continue dfa;
+                    case 48:   // ASSIGNMENT_OP
+                        kind = 11;
+                        accepted = p;
+                        break dfa;
+                    case 49:   // INC_DEC_OP
+                        kind = 18;
+                        accepted = p;
+                        break dfa;
+                    case 50:
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c >= '0' && c <= '9') {
+                            p++;
+                            state = 67;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 56:
+                        if (e - p >= 2 && b[p] == 'l' && b[p + 1] == 's') {
+                            p += 2;
+                            state = 81;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 57:
+                        if (e - p >= 4 && b[p] == 'n' && b[p + 1] == 'i' && b[p + 2] == 's' && b[p + 3] == 'h') {
+                            p += 4;
+                            state = 117;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 58:
+                        if (e - p >= 6 && b[p] == 'n' && b[p + 1] == 'c' && b[p + 2] == 't' && b[p + 3] == 'i' && b[p + 4] == 'o' && b[p + 5] == 'n') {
+                            p += 6;
+                            state = 131;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 65:
+                        while (p < e) {
+                            c = b[p];
+                            if (c >= 0xD800 && c < 0xDC00) c = codePoint(b, p, e);
+                            if (!(c == '*')) break;
+                            p += Character.charCount(c);
+                        }
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c >= 0xD800 && c < 0xDC00) c = codePoint(b, p, e);
+                        if (c == '#') {
+                            p += Character.charCount(c);
+                            state = 2;
+                            continue dfa;
+                        }
+                        p += Character.charCount(c);
+                        state = 44;
+                        continue dfa;
+                    case 66:   // CHAR
+                        kind = 19;
+                        accepted = p;
+                        break dfa;
+                    case 67:   // FLOAT
+                        kind = 20;
+                        accepted = p;
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c >= '0' && c <= '9') {
+                            p++;
+                            state = 82;
+                            continue dfa;
+                        }
+                        if (c == 'E' || c == 'e') {
+                            p++;
+                            state = 83;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 70:
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c == 'd') {
+                            p++;
+                            state = 86;
+                            continue dfa;
+                        }
+                        if (c == 't') {
+                            p++;
+                            state = 87;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 81:
+                        if (e - p >= 1 && b[p] == 'e') {
+                            p += 1;
+                            state = 97;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 82:   // FLOAT
+                        kind = 20;
+                        accepted = p;
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c >= '0' && c <= '9') {
+                            p++;
+                            state = 98;
+                            continue dfa;
+                        }
+                        if (c == 'E' || c == 'e') {
+                            p++;
+                            state = 83;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 83:
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c == '+' || c == '-') {
+                            p++;
+                            state = 99;
+                            continue dfa;
+                        }
+                        if (c >= '0' && c <= '9') {
+                            p++;
+                            state = 100;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 86:
+                        if (e - p >= 5 && b[p] == 'i' && b[p + 1] == 't' && b[p + 2] == 'i' && b[p + 3] == 'o' && b[p + 4] == 'n') {
+                            p += 5;
+                            state = 133;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 87:
+                        if (e - p >= 4 && b[p] == 'i' && b[p + 1] == 'n' && b[p + 2] == 'u' && b[p + 3] == 'e') {
+                            p += 4;
+                            state = 130;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 89:   // ELSE
+                        kind = 21;
+                        accepted = p;
+                        break dfa;
+                    case 93:   // LOOP
+                        kind = 22;
+                        accepted = p;
+                        break dfa;
+                    case 97:   // BOOLEAN
+                        kind = 23;
+                        accepted = p;
+                        break dfa;
+                    case 98:   // FLOAT
+                        kind = 20;
+                        accepted = p;
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c >= '0' && c <= '9') {
+                            p++;
+                            state = 112;
+                            continue dfa;
+                        }
+                        if (c == 'E' || c == 'e') {
+                            p++;
+                            state = 83;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 99:
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c >= '0' && c <= '9') {
+                            p++;
+                            state = 100;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 100:   // FLOAT
+                        kind = 20;
+                        accepted = p;
+                        while (p < e) {
+                            c = b[p];
+                            if (!(c >= '0' && c <= '9')) break;
+                            p++;
+                        }
+                        accepted = p;
+                        break dfa;
+                    case 102:   // BREAK
+                        kind = 24;
+                        accepted = p;
+                        break dfa;
+                    case 108:   // INPUT
+                        kind = 25;
+                        accepted = p;
+                        break dfa;
+                    case 111:   // START
+                        kind = 26;
+                        accepted = p;
+                        break dfa;
+                    case 112:   // FLOAT
+                        kind = 20;
+                        accepted = p;
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c >= '0' && c <= '9') {
+                            p++;
+                            state = 121;
+                            continue dfa;
+                        }
+                        if (c == 'E' || c == 'e') {
+                            p++;
+                            state = 83;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 117:   // FINISH
+                        kind = 27;
+                        accepted = p;
+                        break dfa;
+                    case 119:   // OUTPUT
+                        kind = 28;
+                        accepted = p;
+                        break dfa;
+                    case 120:   // RETURN
+                        kind = 29;
+                        accepted = p;
+                        break dfa;
+                    case 121:   // FLOAT
+                        kind = 20;
+                        accepted = p;
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c >= '0' && c <= '9') {
+                            p++;
+                            state = 127;
+                            continue dfa;
+                        }
+                        if (c == 'E' || c == 'e') {
+                            p++;
+                            state = 83;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 125:   // DECLARE
+                        kind = 30;
+                        accepted = p;
+                        break dfa;
+                    case 127:   // FLOAT
+                        kind = 20;
+                        accepted = p;
+                        if (p >= e) break dfa;
+                        c = b[p];
+                        if (c == 'E' || c == 'e') {
+                            p++;
+                            state = 83;
+                            continue dfa;
+                        }
+                        break dfa;
+                    case 130:   // CONTINUE
+                        kind = 31;
+                        accepted = p;
+                        break dfa;
+                    case 131:   // FUNCTION
+                        kind = 32;
+                        accepted = p;
+                        break dfa;
+                    case 133:   // CONDITION
+                        kind = 33;
+                        accepted = p;
+                        break dfa;
+                    default:
+                        break dfa;
+                }
+            }
+            if (kind < 0) throw new IllegalStateException("Could not match input at offset " + (start - base));
+            pos = accepted;
+            countLines(start, accepted);
+            TokenType type = TYPES[kind];
+            if (type != null) {
+                tokenType = type;
+                tokenLength = accepted - start;
+                return type;
+            }
+        }
+    }
+
+    // Moves line and lineStart past buf[from, to), counting line ends as Yylex does
+    private void countLines(int from, int to) {
+        char[] b = buf;
+        for (int i = from; i < to; i++) {
+            char c = b[i];
+            if (c > '\r' && c != 0x85 && c != 0x2028 && c != 0x2029) continue;
+            if (c == '\n' || c == 0x0B || c == 0x0C || c == 0x85 || c == 0x2028 || c == 0x2029) {
+                line++;
+                lineStart = i + 1;
+            } else if (c == '\r') {
+                if (i + 1 >= end || b[i + 1] != '\n') line++;   // A \r\n pair counts once, at the \n
+                lineStart = i + 1;
+            }
+        }
+    }
+
+    // The code point at p, which holds a high surrogate
+    private static int codePoint(char[] b, int p, int e) {
+        if (p + 1 < e && Character.isLowSurrogate(b[p + 1])) return Character.toCodePoint(b[p], b[p + 1]);
+        return b[p];
+    }
+
+    public TokenType type() { return tokenType; }
+
+    /** Offset of the token's first character in the text. */
+    public int startOffset() { return tokenStart - base; }
+
+    public int length() { return tokenLength; }
+
+    public int line() { return tokenLine; }
+
+    public int column() { return tokenCol; }
+
+    public String text() { return new String(buf, tokenStart, tokenLength); }
+
+    /** Passes the token just scanned to sink, lexeme included, without creating a Token. */
+    public void emit(TokenSink sink) throws IOException {
+        sink.token(tokenType, tokenStart - base, buf, tokenStart, tokenLength, tokenLine, tokenCol);
+    }
+}
@@ -0,0 +1,710 @@
+/**
+ * DirectScannerGenerator
+ * -------------------------
+ * Writes DirectScanner.java, a direct-coded version of the JFlex scanner.
+ * The token DFA is read from the tables of Yylex (which JFlex built from
+ * Scanner.flex) into a DFA, cut down to the states reachable from the start
+ * state, minimized with DFAMinimizer, starting from one group per token
+ * type, and its character classes compressed.
+ * Every remaining state becomes one case of a switch inside the scan loop,
+ * with its character tests written out as comparisons: transitions back
+ * into the same state become a tight inner loop, a state with many targets
+ * dispatches ASCII through a switch on the char, and the target whose test
+ * would be longest is left to the final branch. There are no tables to
+ * index, so the JIT can keep the state, position and current char in
+ * registers.
+ *
+ * The token type of each JFlex action is found by scanning, with Yylex
+ * itself, the shortest input that ends in a state with that action; the
+ * rules that skip their text (whitespace and comments) give no token.
+ * With --rules the DFA is instead built by ScannerBuilder from the token
+ * rules, with no JFlex tables involved. The DFA is also written, as
+ * ScannerTables, to scanner.tables beside the output, for TableScanner.
+ *
+ * Usage: java src.DirectScannerGenerator [--rules] [output file, default src/DirectScanner.java]
+ */
+
+
+package src;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+public class DirectScannerGenerator {
+    private static final int MAX_CODE_POINT = Character.MAX_CODE_POINT;
+    private static final int SWITCH_MIN_RANGES = 5;    // ASCII ranges above which a state uses a switch
+
+    private final String source;
+    private final int jflexStates;
+    private final int jflexClasses;
+    private final int reachableStates;
+
+    // The minimized DFA, whose kinds index types
+    private final DFA dfa;
+    private final List<List<int[]>> classRanges = new ArrayList<>();   // Code point ranges of each class
+    private final List<TokenType> types = new ArrayList<>();   // null for text that is skipped
+
+    public DirectScannerGenerator() {
+        source = "the DFA of Yylex";
+        int[][] tables = Yylex.tables();
+        int[] cmapTop = tables[0];
+        int[] cmapBlocks = tables[1];
+        int[] rowMap = tables[2];
+        int[] trans = tables[3];
+        int[] attributes = tables[4];
+        int[] actions = tables[5];
+
+        // The JFlex character classes, as runs of code points
+        int classes = 0;
+        for (int k : cmapBlocks) classes = Math.max(classes, k + 1);
+        jflexClasses = classes;
+        int[] runStarts = new int[64];
+        int[] runSymbols = new int[64];
+        int runs = 0;
+        for (int cp = 0; cp <= MAX_CODE_POINT; cp++) {
+            int offset = cp & 255;
+            int k = offset == cp ? cmapBlocks[offset] : cmapBlocks[cmapTop[cp >> 8] | offset];
+            if (runs > 0 && runSymbols[runs - 1] == k) continue;
+            if (runs == runStarts.length) {
+                runStarts = Arrays.copyOf(runStarts, runs * 2);
+                runSymbols = Arrays.copyOf(runSymbols, runs * 2);
+            }
+            runStarts[runs] = cp;
+            runSymbols[runs++] = k;
+        }
+
+        // The JFlex DFA, with the action of each state as its kind
+        jflexStates = rowMap.length;
+        int[] transitions = new int[jflexStates * classes];
+        BitSet accepting = new BitSet(jflexStates);
+        for (int s = 0; s < jflexStates; s++) {
+            System.arraycopy(trans, rowMap[s], transitions, s * classes, classes);
+            accepting.set(s, (attributes[s] & 1) != 0);
+        }
+        DFA jflex = new DFA(jflexStates, classes, transitions, accepting, actions,
+                            Arrays.copyOf(runStarts, runs), Arrays.copyOf(runSymbols, runs)).reachable();
+        reachableStates = jflex.states();
+
+        // The token type of each action, from the first (so shortest) state that has it
+        int[] kindOf = new int[reachableStates];
+        int[] actionKind = new int[Arrays.stream(actions).max().orElse(0) + 1];
+        Arrays.fill(actionKind, -2);
+        for (int s = 0; s < reachableStates; s++) {
+            int action = jflex.kind(s);
+            if (action < 0) continue;
+            if (actionKind[action] == -2) actionKind[action] = kind(probe(jflex.shortestInput(s)));
+            kindOf[s] = actionKind[action];
+        }
+
+        dfa = DFAMinimizer.minimize(jflex.withKinds(kindOf)).compress();
+        for (int k = 0; k < dfa.symbols(); k++) classRanges.add(dfa.ranges(k));
+    }
+
+    /** A generator for the DFA that rules built from the token rules. */
+    public DirectScannerGenerator(ScannerBuilder rules) {
+        source = "the token rules of ScannerBuilder";
+        jflexStates = 0;
+        jflexClasses = rules.subsetSymbols();
+        reachableStates = rules.subsetStates();
+        dfa = rules.dfa();
+        types.addAll(rules.types());
+        for (int k = 0; k < dfa.symbols(); k++) classRanges.add(dfa.ranges(k));
+    }
+
+    // The token Yylex makes of input, or null if it skips it
+    private static TokenType probe(String input) {
+        PrintStream err = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));   // The error rule prints its text
+        try {
+            Yylex scanner = new Yylex(input);
+            TokenType type = scanner.next();
+            if (type == TokenType.EOF) return null;
+            if (scanner.length() != input.length()) {
+                throw new IllegalStateException("Rule for " + type + " did not match all of \"" + input + "\"");
+            }
+            return type;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            System.setErr(err);
+        }
+    }
+
+    private int kind(TokenType type) {
+        int kind = types.indexOf(type);
+        if (kind < 0) {
+            kind = types.size();
+            types.add(type);
+        }
+        return kind;
+    }
+
+    public int classCount() { return dfa.symbols(); }
+
+    public int jflexClasses() { return jflexClasses; }
+
+    public int jflexStates() { return jflexStates; }
+
+    public int reachableStates() { return reachableStates; }
+
+    public int states() { return dfa.states(); }
+
+    /** The same DFA as tables, for TableScanner. */
+    public ScannerTables tables() { return new ScannerTables(dfa, types); }
+
+    /** Source of the DirectScanner class. */
+    public String generate() {
+        StringBuilder out = new StringBuilder(1 << 16);
+        out.append("/**\n")
+           .append(" * DirectScanner\n")
+           .append(" * -------------------------\n")
+           .append(" * GENERATED by DirectScannerGenerator from " + source + "; do not edit.\n")
+           .append(" * Run java src.DirectScannerGenerator after changing Scanner.flex.\n")
+           .append(" *\n")
+           .append(" * Scans in-memory text into the same tokens as Yylex, with the DFA written\n")
+           .append(" * out as code: " + states() + " states (" + reachableStates + " before minimization), "
+                   + classCount() + " character classes.\n")
+           .append(" * Text that no rule matches is an ERROR token, as in Yylex, but is not\n")
+           .append(" * printed. Lines and columns count from 1, columns in chars.\n")
+           .append(" */\n\n\n")
+           .append("package src;\n\n")
+           .append("import java.io.IOException;\n\n")
+           .append("public final class DirectScanner {\n")
+           .append("    // Token type of each accepting kind; null for text that is skipped\n")
+           .append("    private static final TokenType[] TYPES = {\n");
+        for (int i = 0; i < types.size(); i++) {
+            TokenType type = types.get(i);
+            out.append("        ").append(type == null ? "null" : "TokenType." + type.name())
+               .append(i + 1 < types.size() ? ",\n" : "\n");
+        }
+        out.append("    };\n\n");
+        out.append(TEMPLATE_FIELDS);
+
+        out.append("    public TokenType next() {\n")
+           .append("        char[] b = buf;\n")
+           .append("        int e = end;\n")
+           .append("        while (true) {\n")
+           .append("            int start = pos;\n")
+           .append("            tokenStart = start;\n")
+           .append("            tokenLine = line;\n")
+           .append("            tokenCol = start - lineStart + 1;\n")
+           .append("            if (start >= e) {\n")
+           .append("                tokenType = TokenType.EOF;\n")
+           .append("                tokenLength = 0;\n")
+           .append("                return TokenType.EOF;\n")
+           .append("            }\n")
+           .append("            int p = start;\n")
+           .append("            int kind = -1;\n")
+           .append("            int accepted = start;\n")
+           .append("            int state = 0;\n")
+           .append("            int c;\n")
+           .append("            dfa:\n")
+           .append("            while (true) {\n")
+           .append("                switch (state) {\n");
+        boolean[] inChain = chains();
+        for (int s = 0; s < dfa.states(); s++) {
+            if (!inChain[s]) state(out, s);
+        }
+        out.append("                    default:\n")
+           .append("                        break dfa;\n")
+           .append("                }\n")
+           .append("            }\n")
+           .append("            if (kind < 0) throw new IllegalStateException(\"Could not match input at offset \" + (start - base));\n")
+           .append("            pos = accepted;\n")
+           .append("            countLines(start, accepted);\n")
+           .append("            TokenType type = TYPES[kind];\n")
+           .append("            if (type != null) {\n")
+           .append("                tokenType = type;\n")
+           .append("                tokenLength = accepted - start;\n")
+           .append("                return type;\n")
+           .append("            }\n")
+           .append("        }\n")
+           .append("    }\n\n");
+        out.append(TEMPLATE_METHODS);
+        out.append("}\n");
+        return out.toString();
+    }
+
+    // The one char that leads out of s, if s has a single transition on a single char, else -1
+    private int single(int s) {
+        int ch = -1;
+        for (int k = 0; k < dfa.symbols(); k++) {
+            if (dfa.next(s, k) < 0) continue;
+            List<int[]> ranges = classRanges.get(k);
+            if (ch >= 0 || dfa.next(s, k) == s || ranges.size() != 1 || ranges.get(0)[0] != ranges.get(0)[1]) return -1;
+            ch = ranges.get(0)[0];
+        }
+        return ch;
+    }
+
+    private int target(int s, int ch) {
+        for (int k = 0; k < dfa.symbols(); k++) {
+            for (int[] r : classRanges.get(k)) {
+                if (r[0] <= ch && ch <= r[1]) return dfa.next(s, k);
+            }
+        }
+        return -1;
+    }
+
+    // Whether reading a char in s must decode surrogate pairs: only when a
+    // surrogate or a supplementary code point leads to a state other than s
+    // or the dead state
+    private boolean decode(int s) {
+        for (int k = 0; k < dfa.symbols(); k++) {
+            int t = dfa.next(s, k);
+            if (t < 0 || t == s) continue;
+            for (int[] r : classRanges.get(k)) {
+                if (r[1] >= 0xD800 && r[0] <= 0xDFFF || r[1] >= 0x10000) return true;
+            }
+        }
+        return false;
+    }
+
+    // If s accepts, has no transition but one to a single target and does not
+    // decode, the test of that transition; otherwise null
+    private String step(int s) {
+        if (dfa.kind(s) < 0 || decode(s)) return null;
+        int target = -1;
+        List<int[]> ranges = new ArrayList<>();
+        for (int k = 0; k < dfa.symbols(); k++) {
+            int t = dfa.next(s, k);
+            if (t < 0) continue;
+            if (t == s || target >= 0 && t != target) return null;
+            target = t;
+            ranges.addAll(classRanges.get(k));
+        }
+        return target < 0 ? null : test(merge(ranges));
+    }
+
+    private int liveTarget(int s) {
+        for (int k = 0; k < dfa.symbols(); k++) {
+            if (dfa.next(s, k) >= 0) return dfa.next(s, k);
+        }
+        return -1;
+    }
+
+    private boolean hasTransitions(int s) {
+        return liveTarget(s) >= 0;
+    }
+
+    // The number of steps of the bounded repeat that starts at s, or 0: a run
+    // of states that accept alike and step to the next on the same test, the
+    // last with no transitions at all, as {0,30} in a rule compiles to
+    private int repeat(int s, int[] sources) {
+        String test = step(s);
+        if (test == null) return 0;
+        int steps = 0;
+        int t = s;
+        while (true) {
+            t = liveTarget(t);
+            steps++;
+            if (t == 0 || sources[t] != 1 || dfa.kind(t) != dfa.kind(s)) return 0;
+            if (!hasTransitions(t)) return steps;
+            if (!test.equals(step(t))) return 0;
+        }
+    }
+
+    // States inside a chain: entered from one state only, on one char, and
+    // left on one char, without accepting. They are matched as part of the
+    // string that the state before the chain compares against.
+    private boolean[] chains() {
+        int[] sources = new int[dfa.states()];
+        int[] lastSource = new int[dfa.states()];
+        Arrays.fill(lastSource, -1);
+        for (int s = 0; s < dfa.states(); s++) {
+            for (int k = 0; k < dfa.symbols(); k++) {
+                int t = dfa.next(s, k);
+                if (t >= 0 && lastSource[t] != s) {
+                    lastSource[t] = s;
+                    sources[t]++;
+                }
+            }
+        }
+        boolean[] inChain = new boolean[dfa.states()];
+        repeats = new int[dfa.states()];
+        for (int s = 0; s < dfa.states(); s++) {
+            if (inChain[s]) continue;
+            repeats[s] = repeat(s, sources);
+            for (int i = 0, t = s; i < repeats[s]; i++) {
+                t = liveTarget(t);
+                inChain[t] = true;
+            }
+        }
+        for (int s = 0; s < dfa.states(); s++) {
+            int ch = single(s);
+            if (ch < 0 || ch > 0xFFFF || Character.isSurrogate((char) ch)) continue;
+            int t = target(s, ch);
+            if (t != 0 && dfa.kind(t) < 0 && sources[t] == 1 && single(t) >= 0) inChain[t] = true;
+        }
+        this.inChain = inChain;
+        return inChain;
+    }
+
+    private boolean[] inChain;
+    private int[] repeats;
+
+    // The chars of the chain that starts at s, and the state at its end
+    private int chain(int s, StringBuilder chars) {
+        int t = s;
+        do {
+            int ch = single(t);
+            chars.append((char) ch);
+            t = target(t, ch);
+        } while (inChain[t]);
+        return t;
+    }
+
+    private void state(StringBuilder out, int s) {
+        String in = "                        ";
+        out.append("                    case ").append(s).append(":");
+        if (dfa.kind(s) >= 0) {
+            TokenType type = types.get(dfa.kind(s));
+            out.append(type == null ? "   // Skipped text" : "   // " + type.name());
+        }
+        out.append('\n');
+        if (dfa.kind(s) >= 0) out.append(in).append("kind = ").append(dfa.kind(s)).append(";\n")
+                             .append(in).append("accepted = p;\n");
+
+        if (repeats[s] > 0) {
+            out.append(in).append("{\n")
+               .append(in).append("    int limit = e - p < ").append(repeats[s]).append(" ? e : p + ").append(repeats[s]).append(";\n")
+               .append(in).append("    while (p < limit) {\n")
+               .append(in).append("        c = b[p];\n")
+               .append(in).append("        if (!(").append(step(s)).append(")) break;\n")
+               .append(in).append("        p++;\n")
+               .append(in).append("    }\n")
+               .append(in).append("    accepted = p;\n")
+               .append(in).append("    break dfa;\n")
+               .append(in).append("}\n");
+            return;
+        }
+        int ch = single(s);
+        if (ch >= 0 && ch <= 0xFFFF && !Character.isSurrogate((char) ch)) {
+            StringBuilder chars = new StringBuilder();
+            int end = chain(s, chars);
+            out.append(in).append("if (e - p >= ").append(chars.length());
+            for (int i = 0; i < chars.length(); i++) {
+                out.append(" && b[p").append(i == 0 ? "" : " + " + i).append("] == ").append(literal(chars.charAt(i)));
+            }
+            out.append(") {\n")
+               .append(in).append("    p += ").append(chars.length()).append(";\n")
+               .append(in).append("    state = ").append(end).append(";\n")
+               .append(in).append("    continue dfa;\n")
+               .append(in).append("}\n")
+               .append(in).append("break dfa;\n");
+            return;
+        }
+
+        // Code point ranges leading to each target state, dead (-1) included
+        List<Integer> targets = new ArrayList<>();
+        List<List<int[]>> ranges = new ArrayList<>();
+        for (int k = 0; k < dfa.symbols(); k++) {
+            int t = dfa.next(s, k);
+            int i = targets.indexOf(t);
+            if (i < 0) {
+                i = targets.size();
+                targets.add(t);
+                ranges.add(new ArrayList<>());
+            }
+            ranges.get(i).addAll(classRanges.get(k));
+        }
+        for (int i = 0; i < ranges.size(); i++) ranges.set(i, merge(ranges.get(i)));
+
+        boolean decode = decode(s);
+        String read = decode ? "c = b[p];\n" + "if (c >= 0xD800 && c < 0xDC00) c = codePoint(b, p, e);\n" : "c = b[p];\n";
+        String advance = decode ? "p += Character.charCount(c);\n" : "p++;\n";
+
+        int self = targets.indexOf(s);
+        if (self >= 0) {
+            out.append(in).append("while (p < e) {\n");
+            indent(out, in + "    ", read);
+            out.append(in).append("    if (!(").append(test(ranges.get(self))).append(")) break;\n");
+            indent(out, in + "    ", advance);
+            out.append(in).append("}\n");
+            if (dfa.kind(s) >= 0) out.append(in).append("accepted = p;\n");
+            ranges.get(self).clear();
+        }
+
+        // The target with the longest test is taken when no other test holds
+        int fallback = -1;
+        int longest = -1;
+        for (int i = 0; i < targets.size(); i++) {
+            if (i == self) continue;
+            int cost = cost(ranges.get(i));
+            if (cost > longest) {
+                longest = cost;
+                fallback = i;
+            }
+        }
+        boolean anyLive = false;
+        for (int i = 0; i < targets.size(); i++) {
+            if (i != self && targets.get(i) >= 0 && !ranges.get(i).isEmpty()) anyLive = true;
+        }
+        if (!anyLive) {
+            out.append(in).append("break dfa;\n");
+            return;
+        }
+
+        out.append(in).append("if (p >= e) break dfa;\n");
+        indent(out, in, read);
+
+        // Tests in order of their lowest char, with ASCII in a switch when there are many
+        List<Integer> tested = new ArrayList<>();
+        for (int i = 0; i < targets.size(); i++) {
+            if (i != self && i != fallback && !ranges.get(i).isEmpty()) tested.add(i);
+        }
+        tested.sort((x, y) -> Integer.compare(ranges.get(x).get(0)[0], ranges.get(y).get(0)[0]));
+        int asciiRanges = 0;
+        for (int i : tested) asciiRanges += clip(ranges.get(i), 0, 127).size();
+
+        if (asciiRanges >= SWITCH_MIN_RANGES) {
+            out.append(in).append("if (c < 128) {\n")
+               .append(in).append("    switch (c) {\n");
+            for (int i : tested) {
+                List<int[]> ascii = clip(ranges.get(i), 0, 127);
+                if (ascii.isEmpty()) continue;
+                out.append(in).append("        ");
+                int labels = 0;
+                for (int[] r : ascii) {
+                    for (int c = r[0]; c <= r[1]; c++) {
+                        if (labels > 0 && labels % 8 == 0) out.append('\n').append(in).append("        ");
+                        else if (labels > 0) out.append(' ');
+                        out.append("case ").append(literal(c)).append(':');
+                        labels++;
+                    }
+                }
+                out.append('\n');
+                move(out, in + "            ", targets.get(i), advance);
+            }
+            out.append(in).append("    }\n");
+            move(out, in + "    ", targets.get(fallback), advance);
+            out.append(in).append("}\n");
+            for (int i : tested) {
+                List<int[]> rest = clip(ranges.get(i), 128, MAX_CODE_POINT);
+                if (rest.isEmpty()) continue;
+                out.append(in).append("if (").append(test(rest)).append(") {\n");
+                move(out, in + "    ", targets.get(i), advance);
+                out.append(in).append("}\n");
+            }
+        } else {
+            for (int i : tested) {
+                out.append(in).append("if (").append(test(ranges.get(i))).append(") {\n");
+                move(out, in + "    ", targets.get(i), advance);
+                out.append(in).append("}\n");
+            }
+        }
+        move(out, in, targets.get(fallback), advance);
+    }
+
+    private static void indent(StringBuilder out, String in, String lines) {
+        for (String line : lines.split("\n")) out.append(in).append(line).append('\n');
+    }
+
+    private static void move(StringBuilder out, String in, int target, String advance) {
+        if (target < 0) {
+            out.append(in).append("break dfa;\n");
+        } else {
+            indent(out, in, advance);
+            out.append(in).append("state = ").append(target).append(";\n")
+               .append(in).append("continue dfa;\n");
+        }
+    }
+
+    // Sorted, with touching ranges joined
+    private static List<int[]> merge(List<int[]> ranges) {
+        List<int[]> sorted = new ArrayList<>(ranges);
+        sorted.sort((x, y) -> Integer.compare(x[0], y[0]));
+        List<int[]> merged = new ArrayList<>();
+        for (int[] r : sorted) {
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && r[0] <= last[1] + 1) {
+                last[1] = Math.max(last[1], r[1]);
+            } else {
+                merged.add(new int[] {r[0], r[1]});
+            }
+        }
+        return merged;
+    }
+
+    private static List<int[]> clip(List<int[]> ranges, int lo, int hi) {
+        List<int[]> clipped = new ArrayList<>();
+        for (int[] r : ranges) {
+            if (r[1] < lo || r[0] > hi) continue;
+            clipped.add(new int[] {Math.max(r[0], lo), Math.min(r[1], hi)});
+        }
+        return clipped;
+    }
+
+    private static List<int[]> complement(List<int[]> ranges) {
+        List<int[]> complement = new ArrayList<>();
+        int from = 0;
+        for (int[] r : ranges) {
+            if (r[0] > from) complement.add(new int[] {from, r[0] - 1});
+            from = r[1] + 1;
+        }
+        if (from <= MAX_CODE_POINT) complement.add(new int[] {from, MAX_CODE_POINT});
+        return complement;
+    }
+
+    private static int cost(List<int[]> ranges) {
+        return Math.min(ranges.size(), complement(ranges).size() + 1);
+    }
+
+    // A test of c against the ranges, or the negated test of their complement if that is shorter
+    private static String test(List<int[]> ranges) {
+        List<int[]> complement = complement(ranges);
+        if (complement.isEmpty()) return "true";
+        if (complement.size() < ranges.size()) return "!(" + disjunction(complement) + ")";
+        return disjunction(ranges);
+    }
+
+    private static String disjunction(List<int[]> ranges) {
+        StringBuilder sb = new StringBuilder();
+        for (int[] r : ranges) {
+            if (sb.length() > 0) sb.append(" || ");
+            if (r[0] == r[1]) {
+                sb.append("c == ").append(literal(r[0]));
+            } else if (r[0] == 0) {
+                sb.append("c <= ").append(literal(r[1]));
+            } else if (r[1] == MAX_CODE_POINT) {
+                sb.append("c >= ").append(literal(r[0]));
+            } else {
+                sb.append(ranges.size() > 1 ? "(" : "")
+                  .append("c >= ").append(literal(r[0])).append(" && c <= ").append(literal(r[1]))
+                  .append(ranges.size() > 1 ? ")" : "");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String literal(int c) {
+        if (c == '\'' || c == '\\') return "'\\" + (char) c + "'";
+        if (c >= 0x20 && c < 0x7f) return "'" + (char) c + "'";
+        return String.format("0x%04X", c);
+    }
+
+    private static final String TEMPLATE_FIELDS =
+        "    private char[] buf;\n" +
+        "    private int base;           // Index in buf of the start of the text\n" +
+        "    private int end;\n" +
+        "    private int pos;            // Next char to scan\n" +
+        "    private int line;           // Line of pos\n" +
+        "    private int lineStart;      // Index in buf of the first char of that line\n" +
+        "\n" +
+        "    private TokenType tokenType;\n" +
+        "    private int tokenStart;\n" +
+        "    private int tokenLength;\n" +
+        "    private int tokenLine;\n" +
+        "    private int tokenCol;\n" +
+        "\n" +
+        "    /** Creates a scanner over source[offset, offset + length), which is not copied. */\n" +
+        "    public DirectScanner(char[] source, int offset, int length) {\n" +
+        "        reset(source, offset, length);\n" +
+        "    }\n" +
+        "\n" +
+        "    public DirectScanner(CharSequence source) {\n" +
+        "        reset(source);\n" +
+        "    }\n" +
+        "\n" +
+        "    /** Starts over on source[offset, offset + length); offsets count from offset. */\n" +
+        "    public void reset(char[] source, int offset, int length) {\n" +
+        "        if (offset < 0 || length < 0 || offset + length > source.length) {\n" +
+        "            throw new IndexOutOfBoundsException(\"Range \" + offset + \"+\" + length + \" of \" + source.length);\n" +
+        "        }\n" +
+        "        buf = source;\n" +
+        "        base = offset;\n" +
+        "        end = offset + length;\n" +
+        "        pos = offset;\n" +
+        "        line = 1;\n" +
+        "        lineStart = offset;\n" +
+        "        tokenType = null;\n" +
+        "    }\n" +
+        "\n" +
+        "    public void reset(CharSequence source) {\n" +
+        "        char[] chars = source.toString().toCharArray();\n" +
+        "        reset(chars, 0, chars.length);\n" +
+        "    }\n" +
+        "\n" +
+        "    /**\n" +
+        "     * Scans the next token. The token is described by type(), startOffset(),\n" +
+        "     * length(), line() and column() until the next call.\n" +
+        "     */\n";
+
+    private static final String TEMPLATE_METHODS =
+        "    // Moves line and lineStart past buf[from, to), counting line ends as Yylex does\n" +
+        "    private void countLines(int from, int to) {\n" +
+        "        char[] b = buf;\n" +
+        "        for (int i = from; i < to; i++) {\n" +
+        "            char c = b[i];\n" +
+        "            if (c > '\\r' && c != 0x85 && c != 0x2028 && c != 0x2029) continue;\n" +
+        "            if (c == '\\n' || c == 0x0B || c == 0x0C || c == 0x85 || c == 0x2028 || c == 0x2029) {\n" +
+        "                line++;\n" +
+        "                lineStart = i + 1;\n" +
+        "            } else if (c == '\\r') {\n" +
+        "                if (i + 1 >= end || b[i + 1] != '\\n') line++;   // A \\r\\n pair counts once, at the \\n\n" +
+        "                lineStart = i + 1;\n" +
+        "            }\n" +
+        "        }\n" +
+        "    }\n" +
+        "\n" +
+        "    // The code point at p, which holds a high surrogate\n" +
+        "    private static int codePoint(char[] b, int p, int e) {\n" +
+        "        if (p + 1 < e && Character.isLowSurrogate(b[p + 1])) return Character.toCodePoint(b[p], b[p + 1]);\n" +
+        "        return b[p];\n" +
+        "    }\n" +
+        "\n" +
+        "    public TokenType type() { return tokenType; }\n" +
+        "\n" +
+        "    /** Offset of the token's first character in the text. */\n" +
+        "    public int startOffset() { return tokenStart - base; }\n" +
+        "\n" +
+        "    public int length() { return tokenLength; }\n" +
+        "\n" +
+        "    public int line() { return tokenLine; }\n" +
+        "\n" +
+        "    public int column() { return tokenCol; }\n" +
+        "\n" +
+        "    public String text() { return new String(buf, tokenStart, tokenLength); }\n" +
+        "\n" +
+        "    /** Passes the token just scanned to sink, lexeme included, without creating a Token. */\n" +
+        "    public void emit(TokenSink sink) throws IOException {\n" +
+        "        sink.token(tokenType, tokenStart - base, buf, tokenStart, tokenLength, tokenLine, tokenCol);\n" +
+        "    }\n";
+
+    public static void main(String[] args) {
+        boolean fromRules = args.length > 0 && args[0].equals("--rules");
+        int first = fromRules ? 1 : 0;
+        Path out = Paths.get(args.length > first ? args[first] : "src/DirectScanner.java");
+        try {
+            long started = System.nanoTime();
+            DirectScannerGenerator generator;
+            if (fromRules) {
+                ScannerBuilder rules = new ScannerBuilder();
+                System.out.print(rules.report());
+                generator = new DirectScannerGenerator(rules);
+            } else {
+                generator = new DirectScannerGenerator();
+                System.out.printf("%d JFlex states, %d reachable, %d after minimization; %d character classes, %d after compression%n",
+                    generator.jflexStates(), generator.reachableStates(), generator.states(),
+                    generator.jflexClasses(), generator.classCount());
+            }
+            String source = generator.generate();
+            Files.write(out, source.getBytes(StandardCharsets.UTF_8));
+            System.out.printf("Wrote %s (%d chars) in %.1f ms%n", out, source.length(), (System.nanoTime() - started) / 1e6);
+            Path tables = out.resolveSibling(ScannerTables.RESOURCE);
+            generator.tables().write(tables);
+            System.out.printf("Wrote %s (%d bytes)%n", tables, Files.size(tables));
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+}
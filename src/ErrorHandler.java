@@ -5,26 +5,47 @@
  * It records formatted error messages including error type, location,
  * offending lexeme, and explanation, while also printing them to the
  * standard error stream. Provides a utility method to check whether any
- * errors have been reported during processing.
+ * errors have been reported during processing. A handler created with
+ * echo disabled only records its messages, so that scans running side by
+ * side do not interleave their output.
  */
 
 
 package src;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class ErrorHandler {
     private List<String> errors = new ArrayList<>();
+    private final boolean echo;
+
+    public ErrorHandler() {
+        this(true);
+    }
+
+    public ErrorHandler(boolean echo) {
+        this.echo = echo;
+    }
 
     public void reportError(String type, int line, int column, String lexeme, String reason) {
         String errorMsg = String.format("Error: [%s] at %d:%d - Lexeme: '%s' -> %s", 
             type, line, column, lexeme, reason);
         errors.add(errorMsg);
-        System.err.println(errorMsg);
+        if (echo) System.err.println(errorMsg);
+    }
+
+    /** Forgets the errors reported so far. */
+    public void clear() {
+        errors.clear();
     }
 
     public boolean hasErrors() {
         return !errors.isEmpty();
     }
+
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
 }
@@ -0,0 +1,178 @@
+/**
+ * IncrementalLexer
+ * -------------------------
+ * Keeps the token stream of a document up to date as it is edited, for use
+ * behind an editor. An edit (offset, removed length, inserted text) is
+ * applied to the text, and only the tokens around it are scanned again:
+ * scanning restarts at the last token that ends before the edit, and stops
+ * as soon as a new token starts at the same place, and in the same column,
+ * as an old token after the edit. From there the old tokens are kept, moved
+ * by the change in length and line count.
+ *
+ * Restart points are token starts. ManualScanner consumes a whole #* *#
+ * comment, however deeply nested, inside one call, so the comment nesting
+ * depth at every token start is zero and the restart state is just the
+ * offset, line and column. An edit inside a comment therefore restarts at
+ * the token before the comment and rescans all of it, and an edit that opens
+ * or closes a comment keeps scanning until the streams agree again.
+ *
+ * The text is kept in a gap buffer, and TokenBuffer keeps its own gap, so an
+ * edit costs the chars and tokens scanned again plus the distance from the
+ * previous edit, not the size of the document. The text gap is left at the
+ * restart point, so the scanner reads everything after it as one run of
+ * the array.
+ */
+
+
+package src;
+
+public class IncrementalLexer {
+    private char[] text;
+    private int length;         // Chars of text, the gap not counted
+    private int gapStart;       // The gap is text[gapStart, gapStart + gapLength)
+    private int gapLength;
+    private final TokenBuffer tokens;
+    private final ErrorHandler errors = new ErrorHandler(false);  // Errors are not kept
+    private final ManualScanner scanner;                            // Reset for every edit
+
+    // Live view of the text, used by the token buffer to cut lexemes
+    private final CharSequence view = new CharSequence() {
+        @Override
+        public int length() { return length; }
+
+        @Override
+        public char charAt(int index) { return text[index < gapStart ? index : index + gapLength]; }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (end <= gapStart) return new String(text, start, end - start);
+            if (start >= gapStart) return new String(text, start + gapLength, end - start);
+            return new StringBuilder(end - start)
+                .append(text, start, gapStart - start)
+                .append(text, gapStart + gapLength, end - gapStart)
+                .toString();
+        }
+
+        @Override
+        public String toString() { return subSequence(0, length).toString(); }
+    };
+
+    public IncrementalLexer(CharSequence initial) {
+        this.length = initial.length();
+        this.text = new char[Math.max(16, length + length / 2)];
+        for (int i = 0; i < length; i++) text[i] = initial.charAt(i);
+        this.gapStart = length;
+        this.gapLength = text.length - length;
+        this.tokens = new TokenBuffer(view, Math.max(1024, length / 4));
+        this.scanner = new ManualScanner(text, length, null, errors);
+        tokens.fill(scanner);
+    }
+
+    /** The current token stream; it is updated in place by edit(). */
+    public TokenBuffer tokens() { return tokens; }
+
+    public CharSequence text() { return view; }
+
+    /**
+     * Replaces removed chars at offset with inserted and brings the tokens up
+     * to date. Returns the number of tokens that had to be scanned again.
+     */
+    public int edit(int offset, int removed, CharSequence inserted) {
+        if (offset < 0 || removed < 0 || offset + removed > length) {
+            throw new IndexOutOfBoundsException("Edit " + offset + "+" + removed + " outside text of length " + length);
+        }
+        int delta = inserted.length() - removed;
+        int oldEditEnd = offset + removed;
+        int newEditEnd = offset + inserted.length();
+
+        // Restart at the last token whose scan cannot have looked at the edited
+        // text: it must end before the edit (the scanner peeks one char past a
+        // token), and it must not be a string, whose line is where it ends
+        int restart = firstTokenAtOrAfter(offset, 0) - 1;
+        while (restart >= 0 && (tokens.start(restart) + tokens.length(restart) >= offset
+                || tokens.type(restart) == TokenType.STRING)) {
+            restart--;
+        }
+
+        // The scanner reads the array from the end of the gap, which is at the
+        // restart point; offsets in the array are gapLength past those in the text
+        applyToText(offset, removed, inserted, restart >= 0 ? tokens.start(restart) : 0);
+        errors.clear();
+        scanner.reset(text, text.length);
+        if (restart >= 0) {
+            scanner.seek(gapStart + gapLength, tokens.line(restart), tokens.column(restart) - 1);
+        } else {
+            scanner.seek(gapLength, 1, 0);
+            restart = 0;
+        }
+
+        TokenBuffer rescanned = new TokenBuffer(view, 64);
+        int syncIndex = tokens.size();
+        int lineDelta = 0;
+        int candidate = firstTokenAtOrAfter(oldEditEnd, restart);
+        TokenType type;
+        while ((type = scanner.next()) != TokenType.EOF) {
+            int start = scanner.startOffset() - gapLength;
+            if (start >= newEditEnd) {
+                // Line up with the old stream: same place in the unchanged text, same column
+                int oldStart = start - delta;
+                while (candidate < tokens.size() && tokens.start(candidate) < oldStart) candidate++;
+                if (candidate < tokens.size() && tokens.start(candidate) == oldStart
+                        && tokens.column(candidate) == scanner.column()) {
+                    syncIndex = candidate;
+                    lineDelta = scanner.line() - tokens.line(candidate);
+                    break;
+                }
+            }
+            rescanned.add(type, start, scanner.length(), scanner.line(), scanner.column());
+        }
+
+        tokens.splice(restart, syncIndex, rescanned, delta, lineDelta);
+        return rescanned.size();
+    }
+
+    // Makes the edit and leaves the gap at restart, which is at or before offset
+    private void applyToText(int offset, int removed, CharSequence inserted, int restart) {
+        int growth = inserted.length() - removed;
+        if (growth > gapLength) grow(growth);
+        moveGap(restart);
+
+        // The chars from restart to the edit open the text after the gap; they
+        // move left by the growth, and the inserted chars follow them
+        int prefix = offset - restart;
+        int after = gapStart + gapLength - growth;
+        System.arraycopy(text, gapStart + gapLength, text, after, prefix);
+        for (int i = 0; i < inserted.length(); i++) text[after + prefix + i] = inserted.charAt(i);
+        gapLength -= growth;
+        length += growth;
+    }
+
+    private void moveGap(int at) {
+        if (at < gapStart) {
+            System.arraycopy(text, at, text, at + gapLength, gapStart - at);
+        } else if (at > gapStart) {
+            System.arraycopy(text, gapStart + gapLength, text, gapStart, at - gapStart);
+        }
+        gapStart = at;
+    }
+
+    private void grow(int growth) {
+        int capacity = Math.max(text.length * 2, length + growth + 16);
+        char[] grown = new char[capacity];
+        int tail = length - gapStart;
+        System.arraycopy(text, 0, grown, 0, gapStart);
+        System.arraycopy(text, gapStart + gapLength, grown, capacity - tail, tail);
+        text = grown;
+        gapLength = capacity - length;
+    }
+
+    private int firstTokenAtOrAfter(int offset, int from) {
+        int lo = from, hi = tokens.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (tokens.start(mid) < offset) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
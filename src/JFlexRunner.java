@@ -3,7 +3,8 @@
  * -------------------------
  * Serves as the entry point for executing the JFlex-generated lexical scanner.
  * It reads a source file, continuously invokes the scanner to obtain tokens,
- * and prints each token until the end-of-file is reached. The program also
+ * and prints each token through a buffered TokenSink until the end-of-file
+ * is reached. The program also
  * handles file reading and scanner-related errors to ensure controlled execution
  * during lexical analysis testing.
  */
@@ -17,22 +18,19 @@ import java.io.IOException;
 public class JFlexRunner {
     public static void main(String[] args) {
         try {
-            // Make sure this points to your actual test file
-            String testFile = "tests/test1.lang";
+            // Default to test1 if no argument is provided
+            String testFile = (args.length > 0) ? args[0] : "tests/test1.lang";
             
             System.out.println("Reading from: " + testFile);
             Yylex scanner = new Yylex(new FileReader(testFile));
-            Token token;
+            TokenSink sink = new TextTokenSink(System.out);
             
             System.out.println("--- JFlex Scanner Output ---");
-            // Loop until End Of File (EOF)
-            while ((token = scanner.yylex()) != null && token.type != TokenType.EOF) {
-                System.out.println(token);
-            }
-            // Print the final EOF token for completeness
-            if (token != null) {
-                System.out.println(token);
+            // Loop until End Of File (EOF); next() reports it as an EOF type instead of null
+            while (scanner.next() != TokenType.EOF) {
+                scanner.emit(sink);
             }
+            sink.flush();
 
         } catch (IOException e) {
             System.err.println("Error reading file: " + e.getMessage());
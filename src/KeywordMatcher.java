@@ -0,0 +1,74 @@
+/**
+ * KeywordMatcher
+ * -------------------------
+ * Decides whether a word in the source is a keyword straight from its
+ * characters, without building a String. The table is generated at class
+ * load from the spellings declared on TokenType: keywords are grouped by
+ * their first letter, and a word is only compared against the few keywords
+ * that share its first letter and length. Keywords are all lowercase, so
+ * any word that starts with another character (every identifier starts with
+ * an uppercase letter) is rejected after a single range check.
+ */
+
+
+package src;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class KeywordMatcher {
+    private static final char[][][] SPELLINGS = new char[26][][];
+    private static final TokenType[][] TYPES = new TokenType[26][];
+    private static final int MIN_LENGTH;
+    private static final int MAX_LENGTH;
+
+    static {
+        List<List<char[]>> spellings = new ArrayList<>();
+        List<List<TokenType>> types = new ArrayList<>();
+        for (int i = 0; i < 26; i++) {
+            spellings.add(new ArrayList<>());
+            types.add(new ArrayList<>());
+        }
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        for (TokenType type : TokenType.values()) {
+            for (String word : type.spellings()) {
+                int first = word.charAt(0) - 'a';
+                if (first < 0 || first >= 26) {
+                    throw new IllegalStateException("Keyword must start with a lowercase letter: " + word);
+                }
+                spellings.get(first).add(word.toCharArray());
+                types.get(first).add(type);
+                min = Math.min(min, word.length());
+                max = Math.max(max, word.length());
+            }
+        }
+        for (int i = 0; i < 26; i++) {
+            if (spellings.get(i).isEmpty()) continue;
+            SPELLINGS[i] = spellings.get(i).toArray(new char[0][]);
+            TYPES[i] = types.get(i).toArray(new TokenType[0]);
+        }
+        MIN_LENGTH = min;
+        MAX_LENGTH = max;
+    }
+
+    private KeywordMatcher() {}
+
+    /** Returns the keyword type of text[start, start + length), or null if it is not a keyword. */
+    public static TokenType match(char[] text, int start, int length) {
+        if (length < MIN_LENGTH || length > MAX_LENGTH) return null;
+        int first = text[start] - 'a';
+        if (first < 0 || first >= 26) return null;
+        char[][] candidates = SPELLINGS[first];
+        if (candidates == null) return null;
+
+        for (int k = 0; k < candidates.length; k++) {
+            char[] word = candidates[k];
+            if (word.length != length) continue;
+            int i = 1;
+            while (i < length && text[start + i] == word[i]) i++;
+            if (i == length) return TYPES[first][k];
+        }
+        return null;
+    }
+}
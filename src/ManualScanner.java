@@ -13,6 +13,18 @@
  *
  * The scanner integrates with a symbol table and error handler to simulate
  * compiler-style lexical analysis without relying on automated tools.
+ *
+ * Source text is held in a character window. A scanner built from a file path
+ * loads the whole file into that window; a scanner built by mapFile() maps the
+ * file with FileChannel.map and decodes it into a fixed-size window on demand,
+ * so large inputs are scanned without being copied onto the heap. Scanners
+ * built from a Reader or ReadableByteChannel refill the same window as they
+ * go, so piped input can be tokenized in constant memory before it has all
+ * arrived.
+ *
+ * reset() points a scanner at new input and starts over, keeping its window
+ * and decoder, so that a server can keep a few scanners (see ScannerPool)
+ * instead of building one per request.
  */
 
 
@@ -21,41 +33,60 @@ package src;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.TreeMap; 
 
 public class ManualScanner {
-    private String source;
+    private static final int WINDOW_SIZE = 65536;
+    private static final int BYTE_BUFFER_SIZE = 8192;
+
+    private char[] buf;         // Window over the source text
+    private boolean ownsBuf = true; // False when buf is the caller's array, which must not be written
+    private int bufLimit;       // Number of valid chars in buf
+    private int bufOffset = 0;  // Source offset of buf[0]
     private int current = 0;
     public int line = 1;      
     private int col = 0;      
     private int start = 0; 
     
-    private SymbolTable symbolTable;
+    private Symbols symbolTable;
     private ErrorHandler errorHandler;
-    
-    private static final Map<String, TokenType> keywords;
-
-    static {
-        keywords = new HashMap<>();
-        keywords.put("start", TokenType.START);
-        keywords.put("finish", TokenType.FINISH);
-        keywords.put("loop", TokenType.LOOP);
-        keywords.put("condition", TokenType.CONDITION);
-        keywords.put("declare", TokenType.DECLARE);
-        keywords.put("output", TokenType.OUTPUT);
-        keywords.put("input", TokenType.INPUT);
-        keywords.put("function", TokenType.FUNCTION);
-        keywords.put("return", TokenType.RETURN);
-        keywords.put("break", TokenType.BREAK);
-        keywords.put("continue", TokenType.CONTINUE);
-        keywords.put("else", TokenType.ELSE);
-        keywords.put("true", TokenType.BOOLEAN);
-        keywords.put("false", TokenType.BOOLEAN);
-    }
-
-    public ManualScanner(String filePath, SymbolTable st, ErrorHandler eh) throws IOException {
+
+    // The most recently scanned token
+    private TokenType tokenType;
+    private int tokenStart;     // Index into buf
+    private int tokenLength;
+    private int tokenLine;
+    private int tokenCol;
+    private int tokenStartLine; // Line the token starts on (strings report the line they end on)
+    private int tokenSymbol;    // Symbol table id of an identifier, or -1
+
+
+    // Streamed input: either a Reader, or bytes (mapped, or refilled from a
+    // channel) that are decoded into buf as scanning proceeds
+    private Reader reader;
+    private ReadableByteChannel channel;
+    private ByteBuffer bytes;
+    private CharsetDecoder decoder;
+    private boolean bytesDone = true;
+    private boolean inputDone = true;
+    private char lastRead = '\n';
+
+    public ManualScanner(String filePath, Symbols st, ErrorHandler eh) throws IOException {
         StringBuilder sb = new StringBuilder();
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
             String lineStr;
@@ -63,132 +94,375 @@ public class ManualScanner {
                 sb.append(lineStr).append("\n");
             }
         }
-        this.source = sb.toString();
+        this.buf = new char[sb.length()];
+        sb.getChars(0, sb.length(), buf, 0);
+        this.bufLimit = buf.length;
+        this.symbolTable = st;
+        this.errorHandler = eh;
+    }
+
+    /**
+     * Creates a scanner over text that is already in memory. A String must be
+     * passed as a CharSequence, since ManualScanner(String, ...) reads a file.
+     */
+    public ManualScanner(CharSequence source, Symbols st, ErrorHandler eh) {
+        this.buf = new char[source.length()];
+        if (source instanceof String) {
+            ((String) source).getChars(0, buf.length, buf, 0);
+        } else {
+            for (int i = 0; i < buf.length; i++) buf[i] = source.charAt(i);
+        }
+        this.bufLimit = buf.length;
+        this.symbolTable = st;
+        this.errorHandler = eh;
+    }
+
+    /** Creates a scanner over the first length chars of source, without copying them. */
+    public ManualScanner(char[] source, int length, Symbols st, ErrorHandler eh) {
+        this.buf = source;
+        this.ownsBuf = false;
+        this.bufLimit = length;
+        this.symbolTable = st;
+        this.errorHandler = eh;
+    }
+
+    public ManualScanner(Reader in, Symbols st, ErrorHandler eh) {
+        this(in, WINDOW_SIZE, st, eh);
+    }
+
+    /**
+     * Creates a streaming scanner that reads from the given Reader through a
+     * window of windowSize chars. The window only grows when a single token
+     * is longer than it.
+     */
+    public ManualScanner(Reader in, int windowSize, Symbols st, ErrorHandler eh) {
+        this.buf = new char[windowSize];
+        this.reader = in;
+        this.inputDone = false;
+        this.symbolTable = st;
+        this.errorHandler = eh;
+    }
+
+    public ManualScanner(ReadableByteChannel in, Symbols st, ErrorHandler eh) {
+        this(in, WINDOW_SIZE, st, eh);
+    }
+
+    /**
+     * Creates a streaming scanner that reads bytes from a blocking channel and
+     * decodes them with the platform charset into a window of windowSize chars.
+     */
+    public ManualScanner(ReadableByteChannel in, int windowSize, Symbols st, ErrorHandler eh) {
+        this(ByteBuffer.allocate(BYTE_BUFFER_SIZE).flip(), windowSize, st, eh);
+        this.channel = in;
+        this.bytesDone = false;
+    }
+
+    private ManualScanner(ByteBuffer bytes, int windowSize, Symbols st, ErrorHandler eh) {
+        this.buf = new char[windowSize];
+        this.bytes = bytes;
+        this.decoder = newDecoder();
+        this.inputDone = false;
+        this.symbolTable = st;
+        this.errorHandler = eh;
+    }
+
+    /**
+     * Creates a scanner over a memory-mapped file. Only a fixed-size window of
+     * decoded characters is kept on the heap; it is refilled from the mapping
+     * as the scanner advances.
+     */
+    public static ManualScanner mapFile(String filePath, Symbols st, ErrorHandler eh) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ManualScanner(bytes, WINDOW_SIZE, st, eh);
+        }
+    }
+
+    private static CharsetDecoder newDecoder() {
+        return Charset.defaultCharset().newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Starts over on source, as a new scanner over it would. The chars are
+     * copied into this scanner's own buffer, which is only replaced when it
+     * is too small. The symbol table and error handler are kept as they are.
+     */
+    public void reset(CharSequence source) {
+        int length = source.length();
+        if (!ownsBuf || buf.length < length) {
+            buf = new char[length];
+            ownsBuf = true;
+        }
+        if (source instanceof String) {
+            ((String) source).getChars(0, length, buf, 0);
+        } else {
+            for (int i = 0; i < length; i++) buf[i] = source.charAt(i);
+        }
+        restart(length);
+    }
+
+    /** Starts over on the first length chars of source, without copying them. */
+    public void reset(char[] source, int length) {
+        buf = source;
+        ownsBuf = false;
+        restart(length);
+    }
+
+    /**
+     * Starts over on the bytes from the position to the limit of source,
+     * decoded with the platform charset through this scanner's window, as a
+     * mapFile() scanner does. Scanning moves the position of source.
+     */
+    public void reset(ByteBuffer source) {
+        if (!ownsBuf || buf.length < WINDOW_SIZE) {
+            buf = new char[WINDOW_SIZE];
+            ownsBuf = true;
+        }
+        if (decoder == null) {
+            decoder = newDecoder();
+        } else {
+            decoder.reset();
+        }
+        restart(0);
+        bytes = source;
+        inputDone = false;
+    }
+
+    private void restart(int limit) {
+        bufLimit = limit;
+        bufOffset = 0;
+        current = 0;
+        start = 0;
+        line = 1;
+        col = 0;
+        tokenType = null;
+        tokenStart = 0;
+        tokenLength = 0;
+        tokenSymbol = -1;
+        reader = null;
+        channel = null;
+        bytes = null;
+        bytesDone = true;
+        inputDone = true;
+        lastRead = '\n';
+    }
+
+    /** Replaces the symbol table that identifiers are added to (null for none). */
+    public void setSymbolTable(Symbols st) {
         this.symbolTable = st;
+    }
+
+    /** Replaces the handler that errors are reported to. */
+    public void setErrorHandler(ErrorHandler eh) {
         this.errorHandler = eh;
     }
 
-    private boolean isAtEnd() { return current >= source.length(); }
+    private boolean isAtEnd() { return current >= bufLimit && !fill(1); }
     
     private char advance() { 
+        if (current >= bufLimit && !fill(1)) return '\0';
         col++;
-        return source.charAt(current++); 
+        return buf[current++]; 
     }
     
-    private char peek() { return isAtEnd() ? '\0' : source.charAt(current); }
+    private char peek() { return (current < bufLimit || fill(1)) ? buf[current] : '\0'; }
     
     private char peekNext() { 
-        if (current + 1 >= source.length()) return '\0';
-        return source.charAt(current + 1);
+        if (current + 1 >= bufLimit && !fill(2)) return '\0';
+        return buf[current + 1];
+    }
+
+    // Makes at least 'needed' chars available from current, sliding the window
+    // so that only the text of the token being scanned (from start) is kept.
+    private boolean fill(int needed) {
+        if (inputDone) return false;
+        if (start > 0) {
+            System.arraycopy(buf, start, buf, 0, bufLimit - start);
+            bufOffset += start;
+            bufLimit -= start;
+            current -= start;
+            start = 0;
+        }
+        while (bufLimit - current < needed) {
+            if (bufLimit == buf.length) buf = Arrays.copyOf(buf, buf.length * 2); // Token larger than the window
+            int n = read(buf, bufLimit, buf.length - bufLimit);
+            if (n < 0) {
+                inputDone = true;
+                return bufLimit - current >= needed;
+            }
+            if (n == 0) buf = Arrays.copyOf(buf, buf.length * 2); // Needs room for a surrogate pair
+            bufLimit += n;
+        }
+        return true;
+    }
+
+    // Reads the next part of the input, returning -1 once it is exhausted.
+    // Like the line-based reader, the text always ends with a newline.
+    private int read(char[] dst, int off, int len) {
+        int n;
+        try {
+            n = (reader != null) ? reader.read(dst, off, len) : decode(dst, off, len);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (n >= 0) {
+            if (n > 0) lastRead = dst[off + n - 1];
+            return n;
+        }
+        if (lastRead != '\n') {
+            lastRead = '\n';
+            dst[off] = '\n';
+            return 1;
+        }
+        return -1;
+    }
+
+    private int decode(char[] dst, int off, int len) throws IOException {
+        CharBuffer out = CharBuffer.wrap(dst, off, len);
+        while (true) {
+            CoderResult result = decoder.decode(bytes, out, bytesDone);
+            int n = out.position() - off;
+            if (n > 0 || result.isOverflow()) return n;
+            if (bytesDone) return -1;
+
+            // Out of bytes: refill from the channel
+            bytes.compact();
+            if (channel.read(bytes) < 0) bytesDone = true;
+            bytes.flip();
+        }
     }
 
     public Token nextToken() {
-        skipWhitespace();
-        if (isAtEnd()) return new Token(TokenType.EOF, "", line, col);
+        TokenType type = next();
+        Token token = new Token(type, text(), tokenLine, tokenCol);
+        token.symbol = tokenSymbol;
+        return token;
+    }
+
+    /**
+     * Scans the next token without allocating a Token for it. The token is
+     * described by type(), startOffset(), length(), line() and column() until
+     * the next call; its lexeme is only built when text() is called.
+     */
+    public TokenType next() {
+        // Skipped comments and bad input loop back here rather than recursing,
+        // so long runs of them cannot overflow the stack
+        while (true) {
+            skipWhitespace();
+            tokenStartLine = line;
+            if (isAtEnd()) return eof();
 
-        start = current;
-        char c = advance();
-        int tokenCol = col; 
+            start = current;
+            char c = advance();
+            int tokenCol = col; 
 
-        if (Character.isLetter(c)) return processWord(tokenCol);
+            if (CharClass.isLetter(c)) return processWord(tokenCol);
         
-        if (Character.isDigit(c)) return number(tokenCol);
+            if (CharClass.isDigit(c)) return number(tokenCol);
         
-        // Handle negative numbers vs operators
-        if (c == '-' && Character.isDigit(peek())) return number(tokenCol);
-        if (c == '+' && Character.isDigit(peek())) return number(tokenCol);
-
-        if (c == '"') return string(tokenCol);
-        if (c == '\'') return character(tokenCol);
-
-        switch (c) {
-            case '(': return new Token(TokenType.LPAREN, "(", line, tokenCol);
-            case ')': return new Token(TokenType.RPAREN, ")", line, tokenCol);
-            case '{': return new Token(TokenType.LBRACE, "{", line, tokenCol);
-            case '}': return new Token(TokenType.RBRACE, "}", line, tokenCol);
-            case '[': return new Token(TokenType.LBRACKET, "[", line, tokenCol);
-            case ']': return new Token(TokenType.RBRACKET, "]", line, tokenCol);
-            case ',': return new Token(TokenType.COMMA, ",", line, tokenCol);
-            case ';': return new Token(TokenType.SEMICOLON, ";", line, tokenCol);
-            case ':': return new Token(TokenType.COLON, ":", line, tokenCol);
+            // Handle negative numbers vs operators
+            if (c == '-' && CharClass.isDigit(peek())) return number(tokenCol);
+            if (c == '+' && CharClass.isDigit(peek())) return number(tokenCol);
+
+            if (c == '"') return string(tokenCol);
+            if (c == '\'') {
+                if (character(tokenCol)) return tokenType;
+                continue; // Malformed literal was reported and skipped
+            }
+
+            switch (c) {
+                case '(': return token(TokenType.LPAREN, tokenCol);
+                case ')': return token(TokenType.RPAREN, tokenCol);
+                case '{': return token(TokenType.LBRACE, tokenCol);
+                case '}': return token(TokenType.RBRACE, tokenCol);
+                case '[': return token(TokenType.LBRACKET, tokenCol);
+                case ']': return token(TokenType.RBRACKET, tokenCol);
+                case ',': return token(TokenType.COMMA, tokenCol);
+                case ';': return token(TokenType.SEMICOLON, tokenCol);
+                case ':': return token(TokenType.COLON, tokenCol);
             
-            case '#':
-                if (peek() == '#') { // Single line
-                    while (peek() != '\n' && !isAtEnd()) advance();
-                    return nextToken(); 
-                } else if (peek() == '*') { // BONUS TASK 2: Nested Multi-line Comments 
-                    advance(); // consume *
-                    int depth = 1;
+                case '#':
+                    if (peek() == '#') { // Single line
+                        while (peek() != '\n' && !isAtEnd()) { advance(); start = current; }
+                        continue;
+                    } else if (peek() == '*') { // BONUS TASK 2: Nested Multi-line Comments 
+                        advance(); // consume *
+                        int depth = 1;
                     
-                    while (!isAtEnd() && depth > 0) {
-                        if (peek() == '#' && peekNext() == '*') { 
-                             // Found nested start "#*"
-                             advance(); advance();
-                             depth++;
-                        } else if (peek() == '*' && peekNext() == '#') { 
-                             // Found nested end "*#"
-                             advance(); advance();
-                             depth--;
-                        } else {
-                             // Just normal comment content 
-                             if (peek() == '\n') { line++; col = 0; }
-                             advance();
+                        while (!isAtEnd() && depth > 0) {
+                            if (peek() == '#' && peekNext() == '*') { 
+                                 // Found nested start "#*"
+                                 advance(); advance();
+                                 depth++;
+                            } else if (peek() == '*' && peekNext() == '#') { 
+                                 // Found nested end "*#"
+                                 advance(); advance();
+                                 depth--;
+                            } else {
+                                 // Just normal comment content 
+                                 if (peek() == '\n') { line++; col = 0; }
+                                 advance();
+                            }
+                            start = current; // Comment text is never needed
                         }
-                    }
                     
-                    if (depth > 0) {
-                        errorHandler.reportError("Unclosed Comment", line, tokenCol, "#*", "Nested comment not closed");
-                        return new Token(TokenType.EOF, "", line, col);
-                    } // For unclosed comments
+                        if (depth > 0) {
+                            errorHandler.reportError("Unclosed Comment", line, tokenCol, "#*", "Nested comment not closed");
+                            return eof();
+                        } // For unclosed comments
                     
-                    // Successfully skipped comment, recurse to find next real token
-                    return nextToken();
-                }
-                break; 
+                        // Successfully skipped comment, go on to the next real token
+                        continue;
+                    }
+                    break; 
             
-            case '+': 
-                if (peek() == '+') { advance(); return new Token(TokenType.INC_DEC_OP, "++", line, tokenCol); }
-                if (peek() == '=') { advance(); return new Token(TokenType.ASSIGNMENT_OP, "+=", line, tokenCol); }
-                return new Token(TokenType.ARITHMETIC_OP, "+", line, tokenCol);
-            case '-':
-                if (peek() == '-') { advance(); return new Token(TokenType.INC_DEC_OP, "--", line, tokenCol); }
-                if (peek() == '=') { advance(); return new Token(TokenType.ASSIGNMENT_OP, "-=", line, tokenCol); }
-                return new Token(TokenType.ARITHMETIC_OP, "-", line, tokenCol);
-            case '*':
-                if (peek() == '*') { advance(); return new Token(TokenType.ARITHMETIC_OP, "**", line, tokenCol); }
-                if (peek() == '=') { advance(); return new Token(TokenType.ASSIGNMENT_OP, "*=", line, tokenCol); }
-                return new Token(TokenType.ARITHMETIC_OP, "*", line, tokenCol);
-            case '/':
-                if (peek() == '=') { advance(); return new Token(TokenType.ASSIGNMENT_OP, "/=", line, tokenCol); }
-                return new Token(TokenType.ARITHMETIC_OP, "/", line, tokenCol);
-            case '=':
-                if (peek() == '=') { advance(); return new Token(TokenType.RELATIONAL_OP, "==", line, tokenCol); }
-                return new Token(TokenType.ASSIGNMENT_OP, "=", line, tokenCol);
-            case '!':
-                if (peek() == '=') { advance(); return new Token(TokenType.RELATIONAL_OP, "!=", line, tokenCol); }
-                return new Token(TokenType.LOGICAL_OP, "!", line, tokenCol);
-            case '<':
-                if (peek() == '=') { advance(); return new Token(TokenType.RELATIONAL_OP, "<=", line, tokenCol); }
-                return new Token(TokenType.RELATIONAL_OP, "<", line, tokenCol);
-            case '>':
-                if (peek() == '=') { advance(); return new Token(TokenType.RELATIONAL_OP, ">=", line, tokenCol); }
-                return new Token(TokenType.RELATIONAL_OP, ">", line, tokenCol);
-            case '&':
-                if (peek() == '&') { advance(); return new Token(TokenType.LOGICAL_OP, "&&", line, tokenCol); }
-                break;
-            case '|':
-                if (peek() == '|') { advance(); return new Token(TokenType.LOGICAL_OP, "||", line, tokenCol); }
-                break;
-        }
+                case '+': 
+                    if (peek() == '+') { advance(); return token(TokenType.INC_DEC_OP, tokenCol); }
+                    if (peek() == '=') { advance(); return token(TokenType.ASSIGNMENT_OP, tokenCol); }
+                    return token(TokenType.ARITHMETIC_OP, tokenCol);
+                case '-':
+                    if (peek() == '-') { advance(); return token(TokenType.INC_DEC_OP, tokenCol); }
+                    if (peek() == '=') { advance(); return token(TokenType.ASSIGNMENT_OP, tokenCol); }
+                    return token(TokenType.ARITHMETIC_OP, tokenCol);
+                case '*':
+                    if (peek() == '*') { advance(); return token(TokenType.ARITHMETIC_OP, tokenCol); }
+                    if (peek() == '=') { advance(); return token(TokenType.ASSIGNMENT_OP, tokenCol); }
+                    return token(TokenType.ARITHMETIC_OP, tokenCol);
+                case '/':
+                    if (peek() == '=') { advance(); return token(TokenType.ASSIGNMENT_OP, tokenCol); }
+                    return token(TokenType.ARITHMETIC_OP, tokenCol);
+                case '=':
+                    if (peek() == '=') { advance(); return token(TokenType.RELATIONAL_OP, tokenCol); }
+                    return token(TokenType.ASSIGNMENT_OP, tokenCol);
+                case '!':
+                    if (peek() == '=') { advance(); return token(TokenType.RELATIONAL_OP, tokenCol); }
+                    return token(TokenType.LOGICAL_OP, tokenCol);
+                case '<':
+                    if (peek() == '=') { advance(); return token(TokenType.RELATIONAL_OP, tokenCol); }
+                    return token(TokenType.RELATIONAL_OP, tokenCol);
+                case '>':
+                    if (peek() == '=') { advance(); return token(TokenType.RELATIONAL_OP, tokenCol); }
+                    return token(TokenType.RELATIONAL_OP, tokenCol);
+                case '&':
+                    if (peek() == '&') { advance(); return token(TokenType.LOGICAL_OP, tokenCol); }
+                    break;
+                case '|':
+                    if (peek() == '|') { advance(); return token(TokenType.LOGICAL_OP, tokenCol); }
+                    break;
+            }
 
-        errorHandler.reportError("Invalid Character", line, tokenCol, String.valueOf(c), "Unexpected character");
-        return nextToken();
+            // Report and skip the character, then carry on scanning
+            errorHandler.reportError("Invalid Character", line, tokenCol, String.valueOf(c), "Unexpected character");
+        }
     }
 
     private void skipWhitespace() {
         while (true) {
+            start = current;
             char c = peek();
-            if (c == ' ' || c == '\r' || c == '\t') {
+            if (CharClass.isBlank(c)) {
                 advance();
             } else if (c == '\n') {
                 line++;
@@ -200,59 +474,123 @@ public class ManualScanner {
         }
     }
 
-    private Token processWord(int startCol) {
-        while (Character.isLetterOrDigit(peek()) || peek() == '_') advance();
+    public TokenType type() { return tokenType; }
+
+    /** Offset of the token's first character in the source text. */
+    public int startOffset() { return bufOffset + tokenStart; }
+
+    public int length() { return tokenLength; }
+
+    public int line() { return tokenLine; }
+
+    public int column() { return tokenCol; }
+
+    public String text() {
+        return tokenLength == 0 ? "" : new String(buf, tokenStart, tokenLength);
+    }
+
+    /** Passes the token just scanned to sink, lexeme included, without creating a Token. */
+    public void emit(TokenSink sink) throws IOException {
+        sink.token(tokenType, bufOffset + tokenStart, buf, tokenStart, tokenLength, tokenLine, tokenCol);
+    }
+
+    /** Symbol table id of the identifier just scanned, or -1 for other tokens or without a table. */
+    public int symbol() { return tokenSymbol; }
+
+    int startLine() { return tokenStartLine; }
+
+    /** Offset of the next unscanned character in the source text. */
+    int position() { return bufOffset + current; }
+
+    /**
+     * Moves an in-memory scanner to offset, which must lie outside any comment
+     * or literal. col is the number of characters before offset on its line.
+     */
+    void seek(int offset, int line, int col) {
+        this.current = offset;
+        this.start = offset;
+        this.line = line;
+        this.col = col;
+    }
+
+    private TokenType token(TokenType type, int startCol) {
+        tokenType = type;
+        tokenStart = start;
+        tokenLength = current - start;
+        tokenLine = line;
+        tokenCol = startCol;
+        tokenSymbol = -1;
+        return type;
+    }
+
+    private TokenType eof() {
+        tokenType = TokenType.EOF;
+        tokenStart = current;
+        tokenLength = 0;
+        tokenLine = line;
+        tokenCol = col;
+        tokenSymbol = -1;
+        return TokenType.EOF;
+    }
+
+    private TokenType processWord(int startCol) {
+        while (CharClass.isWordPart(peek())) advance();
         
-        String text = source.substring(start, current);
-        TokenType type = keywords.get(text);
+        TokenType type = KeywordMatcher.match(buf, start, current - start);
 
         if (type != null) {
-            return new Token(type, text, line, startCol);
+            return token(type, startCol);
         }
 
-        if (Character.isUpperCase(text.charAt(0))) {
-            if (text.length() > 31) {
-                errorHandler.reportError("ID Length", line, startCol, text, "Exceeds 30 characters");
+        int length = current - start;
+        if (CharClass.isUpperCase(buf[start])) {
+            if (length > 31) {
+                errorHandler.reportError("ID Length", line, startCol, text(start, length), "Exceeds 30 characters");
             }
-            symbolTable.add(text, "IDENTIFIER", line);
-            return new Token(TokenType.IDENTIFIER, text, line, startCol);
+            int symbol = symbolTable != null ? symbolTable.add(buf, start, length, "IDENTIFIER", line) : -1;
+            token(TokenType.IDENTIFIER, startCol);
+            tokenSymbol = symbol;
+            return TokenType.IDENTIFIER;
         }
 
-        errorHandler.reportError("Invalid Identifier", line, startCol, text, "Identifiers must start with Uppercase");
-        return new Token(TokenType.IDENTIFIER, text, line, startCol);
+        errorHandler.reportError("Invalid Identifier", line, startCol, text(start, length), "Identifiers must start with Uppercase");
+        return token(TokenType.IDENTIFIER, startCol);
     }
 
-    private Token number(int startCol) {
+    private String text(int from, int length) {
+        return new String(buf, from, length);
+    }
+
+    private TokenType number(int startCol) {
         boolean isFloat = false;
         if (peek() == '-' || peek() == '+') advance(); 
         
-        while (Character.isDigit(peek())) advance();
+        while (CharClass.isDigit(peek())) advance();
 
         if (peek() == '.') {
             isFloat = true;
             advance();
-            while (Character.isDigit(peek())) advance();
+            while (CharClass.isDigit(peek())) advance();
         }
 
         if (peek() == 'e' || peek() == 'E') {
             isFloat = true;
             advance();
             if (peek() == '+' || peek() == '-') advance();
-            while (Character.isDigit(peek())) advance();
+            while (CharClass.isDigit(peek())) advance();
         }
 
-        String text = source.substring(start, current);
-        return new Token(isFloat ? TokenType.FLOAT : TokenType.INTEGER, text, line, startCol);
+        return token(isFloat ? TokenType.FLOAT : TokenType.INTEGER, startCol);
     }
 
-    private Token string(int startCol) {
+    private TokenType string(int startCol) {
         while (peek() != '"' && !isAtEnd()) {
             if (peek() == '\n') { line++; col=0; }
             
             if (peek() == '\\') {
                 advance(); // consume the backslash
                 
-                // BONUS TASK 3: Unicode Escape Support (\uXXXX)
+                // BONUS TASK 3: Unicode Escape Support (\\uXXXX)
                 if (peek() == 'u') {
                     advance(); // consume 'u'
                     // Consume exactly 4 hex digits
@@ -270,36 +608,48 @@ public class ManualScanner {
 
         if (isAtEnd()) {
             errorHandler.reportError("String Error", line, startCol, "...", "Unterminated string");
-            return new Token(TokenType.EOF, "", line, col);
+            return eof();
         }
 
         advance(); // The closing "
-        String text = source.substring(start, current);
-        return new Token(TokenType.STRING, text, line, startCol);
+        return token(TokenType.STRING, startCol);
     }
 
-    private Token character(int startCol) {
+    // Returns false if the literal was malformed and has been skipped
+    private boolean character(int startCol) {
         if (peek() == '\\') advance(); 
         advance(); 
         if (peek() == '\'') {
             advance(); 
-            return new Token(TokenType.CHAR, source.substring(start, current), line, startCol);
+            token(TokenType.CHAR, startCol);
+            return true;
         } else {
              errorHandler.reportError("Char Error", line, startCol, "...", "Malformed character");
-             return nextToken();
+             return false;
         }
     }
 
     public static void main(String[] args) {
         try {
-            // Default to test1 if no argument is provided
-            String filePath = (args.length > 0) ? args[0] : "tests/test1.lang";
+            // --mmap maps the file instead of loading it into memory
+            boolean useMmap = args.length > 0 && args[0].equals("--mmap");
+            int argIndex = useMmap ? 1 : 0;
+
+            // Default to test1 if no argument is provided; "-" reads standard input
+            String filePath = (args.length > argIndex) ? args[argIndex] : "tests/test1.lang";
             
             System.out.println("Reading file: " + filePath);
             
             SymbolTable st = new SymbolTable();
             ErrorHandler eh = new ErrorHandler();
-            ManualScanner scanner = new ManualScanner(filePath, st, eh);
+            ManualScanner scanner;
+            if (filePath.equals("-")) {
+                scanner = new ManualScanner(new InputStreamReader(System.in), st, eh);
+            } else if (useMmap) {
+                scanner = ManualScanner.mapFile(filePath, st, eh);
+            } else {
+                scanner = new ManualScanner(filePath, st, eh);
+            }
 
             System.out.println("--- Manual Scanner Output ---");
             
@@ -307,16 +657,17 @@ public class ManualScanner {
             int totalTokens = 0;
             Map<TokenType, Integer> tokenCounts = new TreeMap<>(); // TreeMap keeps keys sorted
             
-            Token token = scanner.nextToken();
-            while (token.type != TokenType.EOF) {
-                System.out.println(token);
+            // Tokens are formatted straight from the scan buffer into a buffered sink
+            TokenSink sink = new TextTokenSink(System.out);
+            TokenType type;
+            while ((type = scanner.next()) != TokenType.EOF) {
+                scanner.emit(sink);
                 
                 // Update Stats
                 totalTokens++;
-                tokenCounts.put(token.type, tokenCounts.getOrDefault(token.type, 0) + 1);
-                
-                token = scanner.nextToken();
+                tokenCounts.put(type, tokenCounts.getOrDefault(type, 0) + 1);
             }
+            sink.flush();
             
             // --- STATISTICS DISPLAY (Requirement 4.2 D) ---
             System.out.println("\n--- Scanner Statistics ---");
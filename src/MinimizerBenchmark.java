@@ -0,0 +1,188 @@
+/**
+ * MinimizerBenchmark
+ * -------------------------
+ * Times DFAMinimizer on random automata of growing size, from a thousand
+ * states up to --max (a million by default). Each automaton is a random DFA
+ * of n / 4 states with every state copied four times, the copies' transitions
+ * going to random copies of the same targets, so the minimal automaton is at
+ * most a quarter of the size and the algorithm has real merging to do. The
+ * state count is checked against the minimized base automaton, and up to
+ * --moore-max states the partition is checked against (and timed next to)
+ * the Moore refinement DFAMinimizer used before. The same automata are then
+ * minimized by the parallel refinement on pools of each --threads size (by
+ * default 1, 2, 4 ... up to the number of processors), checked to give the
+ * same DFA, and the speedup over one thread reported.
+ *
+ * Usage: java src.MinimizerBenchmark [--symbols k] [--max states] [--moore-max states]
+ *                                    [--iterations n] [--threads n,n,...]
+ */
+
+
+package src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+public class MinimizerBenchmark {
+    private static final int COPIES = 4;
+
+    // A random DFA over the letters a, b, ...; about half the states accept
+    static DFA random(int states, int symbols, Random random) {
+        int[] transitions = new int[states * symbols];
+        BitSet accepting = new BitSet(states);
+        for (int s = 0; s < states; s++) {
+            accepting.set(s, random.nextBoolean());
+            for (int c = 0; c < symbols; c++) transitions[s * symbols + c] = random.nextInt(states);
+        }
+        int[] runStarts = new int[symbols + 2];
+        int[] runSymbols = new int[symbols + 2];
+        runSymbols[0] = -1;
+        for (int c = 0; c <= symbols; c++) {
+            runStarts[c + 1] = 'a' + c;
+            runSymbols[c + 1] = c < symbols ? c : -1;
+        }
+        return new DFA(states, symbols, transitions, accepting, null, runStarts, runSymbols);
+    }
+
+    // Every state of base four times over; copy j of s is state s * COPIES + j
+    static DFA copies(DFA base, Random random) {
+        int symbols = base.symbols();
+        int states = base.states() * COPIES;
+        int[] transitions = new int[states * symbols];
+        BitSet accepting = new BitSet(states);
+        for (int s = 0; s < states; s++) {
+            accepting.set(s, base.accepting(s / COPIES));
+            for (int c = 0; c < symbols; c++) {
+                transitions[s * symbols + c] = base.next(s / COPIES, c) * COPIES + random.nextInt(COPIES);
+            }
+        }
+        return new DFA(states, symbols, transitions, accepting, null, base.runStarts, base.runSymbols);
+    }
+
+    static int[] kinds(DFA dfa) {
+        int[] kinds = new int[dfa.states()];
+        for (int s = 0; s < kinds.length; s++) kinds[s] = dfa.kind(s);
+        return kinds;
+    }
+
+    // Runs Moore's refinement on the automaton as State objects, and returns
+    // the block of each state numbered the way minimize() numbers them
+    static int[] moore(DFA dfa) {
+        List<DFAMinimizer.State> states = new ArrayList<>();
+        for (int s = 0; s < dfa.states(); s++) states.add(new DFAMinimizer.State(s, dfa.accepting(s)));
+        Set<Character> alphabet = new TreeSet<>();
+        for (int c = 0; c < dfa.symbols(); c++) {
+            alphabet.add((char) ('a' + c));
+            for (DFAMinimizer.State state : states) {
+                int t = dfa.next(state.id, c);
+                if (t >= 0) state.transitions.put((char) ('a' + c), states.get(t));
+            }
+        }
+        List<Set<DFAMinimizer.State>> partitions = DFAMinimizer.minimizeMoore(states, alphabet, s -> s.isFinal);
+
+        int[] group = new int[dfa.states()];
+        for (int g = 0; g < partitions.size(); g++) {
+            for (DFAMinimizer.State s : partitions.get(g)) group[s.id] = g;
+        }
+        int[] number = new int[partitions.size()];
+        Arrays.fill(number, -1);
+        int count = 0;
+        for (int s = 0; s < group.length; s++) {
+            if (number[group[s]] < 0) number[group[s]] = count++;
+            group[s] = number[group[s]];
+        }
+        return group;
+    }
+
+    public static void main(String[] args) {
+        int symbols = 4;
+        int max = 1_000_000;
+        int mooreMax = 10_000;
+        int iterations = 3;
+        List<Integer> threads = new ArrayList<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--symbols": symbols = Integer.parseInt(args[i + 1]); break;
+                case "--max": max = Integer.parseInt(args[i + 1]); break;
+                case "--moore-max": mooreMax = Integer.parseInt(args[i + 1]); break;
+                case "--iterations": iterations = Integer.parseInt(args[i + 1]); break;
+                case "--threads":
+                    for (String t : args[i + 1].split(",")) threads.add(Integer.parseInt(t.trim()));
+                    break;
+                default: System.err.println("Unknown option: " + args[i]);
+            }
+        }
+        if (threads.isEmpty()) {
+            for (int t = 1; t <= Runtime.getRuntime().availableProcessors(); t *= 2) threads.add(t);
+        }
+
+        System.out.println("--- Minimizer Benchmark ---");
+        System.out.printf("%d symbols, best of %d runs%n", symbols, iterations);
+        System.out.printf("%-12s %-12s %-14s %-14s %-14s%n", "States", "Minimal", "Hopcroft ms", "Mstates/s", "Moore ms");
+
+        Random random = new Random(42);
+        List<DFA> automata = new ArrayList<>();
+        List<DFA> results = new ArrayList<>();
+        for (int n = 1000; n <= max; n *= 10) {
+            DFA base = random(n / COPIES, symbols, random);
+            DFA dfa = copies(base, random);
+            int expected = DFAMinimizer.minimize(base).states();
+
+            DFA minimal = null;
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                minimal = DFAMinimizer.minimize(dfa);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            if (minimal.states() != expected) {
+                throw new IllegalStateException(n + " states: " + minimal.states() + " after minimization, expected " + expected);
+            }
+
+            String moore = "-";
+            if (n <= mooreMax) {
+                long start = System.nanoTime();
+                int[] reference = moore(dfa);
+                moore = String.format("%.2f", (System.nanoTime() - start) / 1e6);
+                if (!Arrays.equals(reference, DFAMinimizer.minimize(dfa.transitions, symbols, kinds(dfa)))) {
+                    throw new IllegalStateException(n + " states: Moore's partition differs");
+                }
+            }
+            System.out.printf("%-12d %-12d %-14.2f %-14.2f %-14s%n", n, expected,
+                best / 1e6, n / (best / 1e9) / 1e6, moore);
+            automata.add(dfa);
+            results.add(minimal);
+        }
+
+        System.out.printf("%nParallel refinement, %d processors available%n", Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-12s %-12s %-14s %-14s%n", "States", "Threads", "ms", "Speedup");
+        for (int a = 0; a < automata.size(); a++) {
+            DFA dfa = automata.get(a);
+            double single = 0;
+            for (int t : threads) {
+                ForkJoinPool pool = new ForkJoinPool(t);
+                DFA minimal = null;
+                long best = Long.MAX_VALUE;
+                for (int i = 0; i < iterations; i++) {
+                    long start = System.nanoTime();
+                    minimal = DFAMinimizer.minimize(dfa, pool);
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                pool.shutdown();
+                DFA expected = results.get(a);
+                if (minimal.states() != expected.states() || !Arrays.equals(minimal.transitions, expected.transitions)
+                        || !minimal.accepting.equals(expected.accepting)) {
+                    throw new IllegalStateException(dfa.states() + " states on " + t + " threads: result differs");
+                }
+                if (single == 0) single = best;
+                System.out.printf("%-12d %-12d %-14.2f %-14.2f%n", dfa.states(), t, best / 1e6, single / best);
+            }
+        }
+    }
+}
@@ -0,0 +1,516 @@
+/**
+ * NFA
+ * -------------------------
+ * A Thompson NFA built from the token rules of a scanner, and the subset
+ * construction that turns it into a DFA. Each rule's regex is parsed, in
+ * the JFlex syntax of Scanner.flex ("strings", [classes] and [^negated]
+ * ones, ., {Macro}, grouping, |, *, +, ? and {m,n}), into a fragment whose
+ * end state accepts that rule, and the fragments all hang off one start
+ * state. Every state has at most two empty moves or one move on a set of
+ * code points.
+ *
+ * The subset construction first cuts the code points into the pieces that
+ * no label splits; those pieces are the symbols of the DFA. DFA states are
+ * epsilon-closed sets of NFA states held as BitSets and found again through
+ * a hash map keyed by the set. A DFA state accepts the first rule that any
+ * of its NFA states accepts, and that rule number is its kind.
+ */
+
+
+package src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+public final class NFA {
+    private static final int MAX = Character.MAX_CODE_POINT;
+    // What . matches: as in JFlex, anything but a line terminator or an unpaired surrogate
+    private static final int[] DOT = complement(ranges('\n', '\r', 0x85, 0x85, 0x2028, 0x2029,
+                                                       Character.MIN_SURROGATE, Character.MAX_SURROGATE));
+
+    private int size = 0;
+    private int[] epsilon1 = new int[64];   // -1 for none
+    private int[] epsilon2 = new int[64];
+    private int[] target = new int[64];     // Target of the move on label, or -1
+    private int[][] label = new int[64][];  // Code point ranges: {first, last, first, last, ...}
+    private int[] accepts = new int[64];    // Rule accepted here, or -1
+    private final int start;
+    private int tail;                       // The start state's last split
+    private int rules = 0;
+
+    public NFA() {
+        start = state();
+        tail = start;
+    }
+
+    public int states() { return size; }
+
+    public int rules() { return rules; }
+
+    /**
+     * Adds a rule for text matching regex, in which {Name} stands for the
+     * regex macros.get(Name), and returns its number. Rules added first win
+     * over later ones that match text of the same length.
+     */
+    public int add(String regex, Map<String, String> macros) {
+        Node node = new Parser(regex, macros).parse();
+        int[] fragment = build(node);
+        int rule = rules++;
+        accepts[fragment[1]] = rule;
+        if (epsilon1[tail] < 0) {
+            epsilon1[tail] = fragment[0];
+        } else {
+            int split = state();
+            epsilon2[tail] = split;
+            epsilon1[split] = fragment[0];
+            tail = split;
+        }
+        return rule;
+    }
+
+    private int state() {
+        if (size == target.length) {
+            int capacity = size * 2;
+            epsilon1 = Arrays.copyOf(epsilon1, capacity);
+            epsilon2 = Arrays.copyOf(epsilon2, capacity);
+            target = Arrays.copyOf(target, capacity);
+            label = Arrays.copyOf(label, capacity);
+            accepts = Arrays.copyOf(accepts, capacity);
+        }
+        epsilon1[size] = -1;
+        epsilon2[size] = -1;
+        target[size] = -1;
+        accepts[size] = -1;
+        return size++;
+    }
+
+    // --- Regex syntax ---
+
+    private static final int CHARS = 0, EMPTY = 1, CONCAT = 2, ALTERNATIVE = 3,
+                             STAR = 4, PLUS = 5, OPTIONAL = 6, REPEAT = 7;
+
+    private static final class Node {
+        final int type;
+        final Node left;
+        final Node right;
+        final int[] ranges;
+        final int min;
+        final int max;      // -1 for no limit
+
+        Node(int type, Node left, Node right, int[] ranges, int min, int max) {
+            this.type = type;
+            this.left = left;
+            this.right = right;
+            this.ranges = ranges;
+            this.min = min;
+            this.max = max;
+        }
+
+        static Node chars(int[] ranges) { return new Node(CHARS, null, null, ranges, 0, 0); }
+
+        static Node of(int type, Node left, Node right) { return new Node(type, left, right, null, 0, 0); }
+    }
+
+    private static final class Parser {
+        private final String regex;
+        private final Map<String, String> macros;
+        private int at = 0;
+
+        Parser(String regex, Map<String, String> macros) {
+            this.regex = regex;
+            this.macros = macros;
+        }
+
+        Node parse() {
+            Node node = alternative();
+            skipSpace();
+            if (at < regex.length()) throw error("Unexpected '" + regex.charAt(at) + "'");
+            return node;
+        }
+
+        private Node alternative() {
+            Node node = concatenation();
+            while (peek() == '|') {
+                at++;
+                node = Node.of(ALTERNATIVE, node, concatenation());
+            }
+            return node;
+        }
+
+        private Node concatenation() {
+            Node node = null;
+            while (true) {
+                int c = peek();
+                if (c < 0 || c == '|' || c == ')') break;
+                Node next = postfix();
+                node = node == null ? next : Node.of(CONCAT, node, next);
+            }
+            return node == null ? Node.of(EMPTY, null, null) : node;
+        }
+
+        private Node postfix() {
+            Node node = atom();
+            while (true) {
+                int c = at < regex.length() ? regex.charAt(at) : -1;
+                if (c == '*') node = Node.of(STAR, node, null);
+                else if (c == '+') node = Node.of(PLUS, node, null);
+                else if (c == '?') node = Node.of(OPTIONAL, node, null);
+                else if (c == '{' && at + 1 < regex.length() && Character.isDigit(regex.charAt(at + 1))) {
+                    int close = regex.indexOf('}', at);
+                    if (close < 0) throw error("Unclosed {");
+                    String[] bounds = regex.substring(at + 1, close).split(",", -1);
+                    int min = Integer.parseInt(bounds[0].trim());
+                    int max = bounds.length == 1 ? min : bounds[1].trim().isEmpty() ? -1 : Integer.parseInt(bounds[1].trim());
+                    node = new Node(REPEAT, node, null, null, min, max);
+                    at = close;
+                } else {
+                    return node;
+                }
+                at++;
+            }
+        }
+
+        private Node atom() {
+            int c = peek();
+            at++;
+            switch (c) {
+                case '(': {
+                    Node node = alternative();
+                    if (peek() != ')') throw error("Unclosed (");
+                    at++;
+                    return node;
+                }
+                case '"': {
+                    Node node = null;
+                    while (at < regex.length() && regex.charAt(at) != '"') {
+                        int ch = literal();
+                        Node next = Node.chars(ranges(ch, ch));
+                        node = node == null ? next : Node.of(CONCAT, node, next);
+                    }
+                    if (at++ >= regex.length()) throw error("Unclosed \"");
+                    return node == null ? Node.of(EMPTY, null, null) : node;
+                }
+                case '[':
+                    return Node.chars(charClass());
+                case '.':
+                    return Node.chars(DOT);
+                case '{': {
+                    int close = regex.indexOf('}', at);
+                    if (close < 0) throw error("Unclosed {");
+                    String name = regex.substring(at, close);
+                    String macro = macros.get(name);
+                    if (macro == null) throw error("Unknown macro {" + name + "}");
+                    at = close + 1;
+                    return new Parser(macro, macros).parse();
+                }
+                case '\\': {
+                    at--;
+                    int ch = escape();
+                    return Node.chars(ranges(ch, ch));
+                }
+                default: {
+                    if (c < 0) throw error("Unexpected end");
+                    int ch = regex.codePointAt(at - 1);
+                    at += Character.charCount(ch) - 1;
+                    return Node.chars(ranges(ch, ch));
+                }
+            }
+        }
+
+        // After the [: items up to the ], with ^ first to negate
+        private int[] charClass() {
+            boolean negate = at < regex.length() && regex.charAt(at) == '^';
+            if (negate) at++;
+            List<Integer> list = new ArrayList<>();
+            while (at < regex.length() && regex.charAt(at) != ']') {
+                int first = literal();
+                int last = first;
+                if (at + 1 < regex.length() && regex.charAt(at) == '-' && regex.charAt(at + 1) != ']') {
+                    at++;
+                    last = literal();
+                }
+                list.add(first);
+                list.add(last);
+            }
+            if (at++ >= regex.length()) throw error("Unclosed [");
+            int[] ranges = new int[list.size()];
+            for (int i = 0; i < ranges.length; i++) ranges[i] = list.get(i);
+            ranges = ranges(ranges);
+            return negate ? complement(ranges) : ranges;
+        }
+
+        // One char, escaped or not
+        private int literal() {
+            if (regex.charAt(at) == '\\') return escape();
+            int ch = regex.codePointAt(at);
+            at += Character.charCount(ch);
+            return ch;
+        }
+
+        // At a backslash: the char it escapes
+        private int escape() {
+            at++;
+            if (at >= regex.length()) throw error("Escape at end");
+            char c = regex.charAt(at++);
+            switch (c) {
+                case 'n': return '\n';
+                case 't': return '\t';
+                case 'r': return '\r';
+                case 'f': return '\f';
+                case 'b': return '\b';
+                case 'u': {
+                    if (at + 4 > regex.length()) throw error("Short \\u escape");
+                    int ch = Integer.parseInt(regex.substring(at, at + 4), 16);
+                    at += 4;
+                    return ch;
+                }
+                default: return c;
+            }
+        }
+
+        private int peek() {
+            skipSpace();
+            return at < regex.length() ? regex.charAt(at) : -1;
+        }
+
+        private void skipSpace() {
+            while (at < regex.length() && (regex.charAt(at) == ' ' || regex.charAt(at) == '\t')) at++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at " + at + " in " + regex);
+        }
+    }
+
+    // Sorted, merged ranges from {first, last} pairs in any order
+    static int[] ranges(int... pairs) {
+        int n = pairs.length / 2;
+        long[] sorted = new long[n];
+        for (int i = 0; i < n; i++) sorted[i] = (long) pairs[2 * i] << 32 | pairs[2 * i + 1];
+        Arrays.sort(sorted);
+        int[] out = new int[pairs.length];
+        int count = 0;
+        for (long range : sorted) {
+            int first = (int) (range >>> 32);
+            int last = (int) range;
+            if (count > 0 && first <= out[count - 1] + 1) {
+                out[count - 1] = Math.max(out[count - 1], last);
+            } else {
+                out[count++] = first;
+                out[count++] = last;
+            }
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    static int[] complement(int[] ranges) {
+        int[] out = new int[ranges.length + 2];
+        int count = 0;
+        int next = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i] > next) {
+                out[count++] = next;
+                out[count++] = ranges[i] - 1;
+            }
+            next = ranges[i + 1] + 1;
+        }
+        if (next <= MAX) {
+            out[count++] = next;
+            out[count++] = MAX;
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    // --- Thompson's construction ---
+
+    // The {start, end} states of the fragment for node; the end has no moves yet
+    private int[] build(Node node) {
+        switch (node.type) {
+            case CHARS: {
+                int s = state();
+                int e = state();
+                target[s] = e;
+                label[s] = node.ranges;
+                return new int[] {s, e};
+            }
+            case EMPTY: {
+                int s = state();
+                return new int[] {s, s};
+            }
+            case CONCAT: {
+                int[] a = build(node.left);
+                int[] b = build(node.right);
+                epsilon1[a[1]] = b[0];
+                return new int[] {a[0], b[1]};
+            }
+            case ALTERNATIVE: {
+                int s = state();
+                int[] a = build(node.left);
+                int[] b = build(node.right);
+                int e = state();
+                epsilon1[s] = a[0];
+                epsilon2[s] = b[0];
+                epsilon1[a[1]] = e;
+                epsilon1[b[1]] = e;
+                return new int[] {s, e};
+            }
+            case STAR:
+            case OPTIONAL: {
+                int s = state();
+                int[] a = build(node.left);
+                int e = state();
+                epsilon1[s] = a[0];
+                epsilon2[s] = e;
+                epsilon1[a[1]] = e;
+                if (node.type == STAR) epsilon2[a[1]] = a[0];
+                return new int[] {s, e};
+            }
+            case PLUS: {
+                int[] a = build(node.left);
+                int e = state();
+                epsilon1[a[1]] = e;
+                epsilon2[a[1]] = a[0];
+                return new int[] {a[0], e};
+            }
+            case REPEAT: {
+                // min copies, then max - min optional ones (or a star)
+                int[] whole = build(Node.of(EMPTY, null, null));
+                for (int i = 0; i < Math.max(node.min, node.max); i++) {
+                    int[] next = build(i < node.min ? node.left : Node.of(OPTIONAL, node.left, null));
+                    epsilon1[whole[1]] = next[0];
+                    whole[1] = next[1];
+                }
+                if (node.max < 0) {
+                    int[] rest = build(Node.of(STAR, node.left, null));
+                    epsilon1[whole[1]] = rest[0];
+                    whole[1] = rest[1];
+                }
+                return whole;
+            }
+            default:
+                throw new IllegalStateException("Node " + node.type);
+        }
+    }
+
+    // --- Subset construction ---
+
+    private void close(BitSet set, int[] stack) {
+        int top = 0;
+        for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) stack[top++] = s;
+        while (top > 0) {
+            int s = stack[--top];
+            int t = epsilon1[s];
+            if (t >= 0 && !set.get(t)) {
+                set.set(t);
+                stack[top++] = t;
+            }
+            t = epsilon2[s];
+            if (t >= 0 && !set.get(t)) {
+                set.set(t);
+                stack[top++] = t;
+            }
+        }
+    }
+
+    /** The DFA of the rules, each accepting state's kind the number of the rule it accepts. */
+    public DFA toDFA() {
+        // The symbols: runs of code points between the bounds of every label
+        TreeSet<Integer> cuts = new TreeSet<>();
+        cuts.add(0);
+        for (int s = 0; s < size; s++) {
+            if (label[s] == null) continue;
+            for (int i = 0; i < label[s].length; i += 2) {
+                cuts.add(label[s][i]);
+                if (label[s][i + 1] < MAX) cuts.add(label[s][i + 1] + 1);
+            }
+        }
+        int[] runStarts = new int[cuts.size()];
+        int runs = 0;
+        for (int cut : cuts) runStarts[runs++] = cut;
+        int[] runSymbols = new int[runs];
+        Arrays.fill(runSymbols, -1);
+        int[][] labelSymbols = new int[size][];
+        int symbols = 0;
+        for (int s = 0; s < size; s++) {
+            if (label[s] == null) continue;
+            int[] list = new int[8];
+            int count = 0;
+            for (int i = 0; i < label[s].length; i += 2) {
+                int from = Arrays.binarySearch(runStarts, label[s][i]);
+                for (int r = from; r < runs && runStarts[r] <= label[s][i + 1]; r++) {
+                    if (runSymbols[r] < 0) runSymbols[r] = symbols++;
+                    if (count == list.length) list = Arrays.copyOf(list, count * 2);
+                    list[count++] = runSymbols[r];
+                }
+            }
+            labelSymbols[s] = Arrays.copyOf(list, count);
+        }
+
+        Map<BitSet, Integer> ids = new HashMap<>();
+        List<BitSet> sets = new ArrayList<>();
+        int[] stack = new int[size];
+        BitSet first = new BitSet(size);
+        first.set(start);
+        close(first, stack);
+        ids.put(first, 0);
+        sets.add(first);
+
+        int[] transitions = new int[64 * Math.max(1, symbols)];
+        BitSet[] moves = new BitSet[symbols];
+        Map<BitSet, Integer> closed = new HashMap<>();
+        for (int d = 0; d < sets.size(); d++) {
+            BitSet set = sets.get(d);
+            Arrays.fill(moves, null);
+            for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) {
+                if (target[s] < 0) continue;
+                for (int k : labelSymbols[s]) {
+                    if (moves[k] == null) moves[k] = new BitSet(size);
+                    moves[k].set(target[s]);
+                }
+            }
+            if ((d + 1) * symbols > transitions.length) transitions = Arrays.copyOf(transitions, transitions.length * 2);
+            // Most symbols share their move with others (every char but a few
+            // in a string, say), so each distinct move is closed only once
+            closed.clear();
+            for (int k = 0; k < symbols; k++) {
+                if (moves[k] == null) {
+                    transitions[d * symbols + k] = -1;
+                    continue;
+                }
+                Integer id = closed.get(moves[k]);
+                if (id == null) {
+                    BitSet move = (BitSet) moves[k].clone();
+                    close(moves[k], stack);
+                    id = ids.get(moves[k]);
+                    if (id == null) {
+                        id = sets.size();
+                        ids.put(moves[k], id);
+                        sets.add(moves[k]);
+                    }
+                    closed.put(move, id);
+                }
+                transitions[d * symbols + k] = id;
+            }
+        }
+
+        int count = sets.size();
+        BitSet accepting = new BitSet(count);
+        int[] kinds = new int[count];
+        for (int d = 0; d < count; d++) {
+            int rule = -1;
+            BitSet set = sets.get(d);
+            for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) {
+                if (accepts[s] >= 0 && (rule < 0 || accepts[s] < rule)) rule = accepts[s];
+            }
+            kinds[d] = rule;
+            accepting.set(d, rule >= 0);
+        }
+        return new DFA(count, symbols, Arrays.copyOf(transitions, count * symbols), accepting, kinds,
+                       runStarts, runSymbols);
+    }
+}
@@ -0,0 +1,23 @@
+/**
+ * NullTokenSink
+ * -------------------------
+ * A TokenSink that only counts the tokens it is given, for measuring a scan
+ * without the cost of any output.
+ */
+
+
+package src;
+
+public class NullTokenSink implements TokenSink {
+    private long count = 0;
+
+    @Override
+    public void token(TokenType type, int offset, char[] text, int start, int length, int line, int column) {
+        count++;
+    }
+
+    @Override
+    public void flush() {}
+
+    public long count() { return count; }
+}
@@ -0,0 +1,228 @@
+/**
+ * ParallelScanner
+ * -------------------------
+ * Tokenizes large in-memory sources on several cores. The text is split into
+ * chunks at line boundaries and each chunk is scanned by its own
+ * ManualScanner on a ForkJoinPool, assuming it starts outside any comment or
+ * literal. The chunks are then stitched together in order: scanning of a
+ * chunk is trusted from the first token that lines up with where the previous
+ * chunk actually stopped, at the same column, which takes care of nested
+ * #* *# comments and strings that run across a chunk boundary. A chunk that
+ * never lines up is scanned again from the right position. Line numbers
+ * are shifted by the difference between the two scans of that first token,
+ * and symbol table entries and errors are replayed in source order, so the
+ * results match a sequential scan.
+ */
+
+
+package src;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+public class ParallelScanner {
+    private static final int MIN_CHUNK_SIZE = 1 << 18;
+
+    // An error reported by a chunk scanner, kept until its chunk is stitched
+    private static class DeferredError {
+        final String type;
+        final int line;
+        final int column;
+        final String lexeme;
+        final String reason;
+        final int position;
+
+        DeferredError(String type, int line, int column, String lexeme, String reason, int position) {
+            this.type = type;
+            this.line = line;
+            this.column = column;
+            this.lexeme = lexeme;
+            this.reason = reason;
+            this.position = position;
+        }
+    }
+
+    private static class DeferredErrors extends ErrorHandler {
+        final List<DeferredError> list = new ArrayList<>();
+        ManualScanner scanner;
+
+        @Override
+        public void reportError(String type, int line, int column, String lexeme, String reason) {
+            list.add(new DeferredError(type, line, column, lexeme, reason, scanner.position()));
+        }
+    }
+
+    // Result of scanning one chunk
+    private static class Chunk {
+        TokenBuffer tokens;
+        List<DeferredError> errors;
+        int lineOffset;    // Added to the chunk's line numbers
+        int resume;        // Where the token after the chunk starts
+        int resumeLine;    // Its start line, reported line and column,
+        int resumeTokenLine; // relative to the chunk
+        int resumeColumn;
+        boolean atEof;     // Scanning stopped at the end of input
+    }
+
+    private static class ChunkTask extends RecursiveTask<Chunk> {
+        private static final long serialVersionUID = 1L;
+
+        private final char[] text;
+        private final int length;
+        private final CharSequence source;
+        private final int from;
+        private final int to;
+
+        ChunkTask(char[] text, int length, CharSequence source, int from, int to) {
+            this.text = text;
+            this.length = length;
+            this.source = source;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Chunk compute() {
+            // A newline counts as the first column of the line after it
+            return scanChunk(text, length, source, from, to, 1, (from == 0) ? 0 : 1);
+        }
+    }
+
+    public static TokenBuffer scan(CharSequence source, Symbols st, ErrorHandler eh) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, source.length() / (pool.getParallelism() * 4));
+        return scan(source, st, eh, pool, chunkSize);
+    }
+
+    public static TokenBuffer scan(CharSequence source, Symbols st, ErrorHandler eh,
+                                   ForkJoinPool pool, int chunkSize) {
+        int length = source.length();
+        char[] text = new char[length];
+        if (source instanceof String) {
+            ((String) source).getChars(0, length, text, 0);
+        } else {
+            for (int i = 0; i < length; i++) text[i] = source.charAt(i);
+        }
+        CharSequence tokenSource = (source instanceof String) ? source : CharBuffer.wrap(text);
+
+        // Split after newlines so every chunk starts a line
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        int next = chunkSize;
+        while (next < length) {
+            while (next < length && text[next - 1] != '\n') next++;
+            if (next >= length) break;
+            bounds.add(next);
+            next += chunkSize;
+        }
+        bounds.add(length);
+
+        List<ChunkTask> tasks = new ArrayList<>();
+        for (int i = 0; i + 1 < bounds.size(); i++) {
+            tasks.add(new ChunkTask(text, length, tokenSource, bounds.get(i), bounds.get(i + 1)));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() { invokeAll(tasks); }
+        });
+
+        TokenBuffer result = new TokenBuffer(tokenSource, Math.max(1024, length / 4));
+        Chunk prev = tasks.get(0).join();
+        append(prev, 0, -1, result, eh);
+
+        for (int i = 1; i < tasks.size() && !prev.atEof; i++) {
+            int chunkEnd = bounds.get(i + 1);
+            if (prev.resume >= chunkEnd) continue; // Swallowed by a comment or literal
+
+            Chunk chunk = tasks.get(i).join();
+            int first = firstTokenAt(chunk.tokens, prev.resume);
+            int expectedLine = prev.resumeTokenLine + prev.lineOffset;
+            // Lined up only if the chunk scanner also agrees on the column; it
+            // does not when the newline before the chunk was swallowed by a
+            // token that leaves the column running on
+            if (first < chunk.tokens.size() && chunk.tokens.start(first) == prev.resume
+                    && chunk.tokens.column(first) - 1 == prev.resumeColumn) {
+                chunk.lineOffset = expectedLine - chunk.tokens.line(first);
+                append(chunk, first, prev.resume, result, eh);
+            } else if (first == chunk.tokens.size() && chunk.resume == prev.resume
+                    && chunk.resumeColumn == prev.resumeColumn) {
+                chunk.lineOffset = expectedLine - chunk.resumeTokenLine;
+                append(chunk, first, prev.resume, result, eh);
+            } else {
+                // Never lined up: rescan from where the previous chunk really stopped
+                chunk = scanChunk(text, length, tokenSource, prev.resume, chunkEnd,
+                                  prev.resumeLine + prev.lineOffset, prev.resumeColumn);
+                append(chunk, 0, -1, result, eh);
+            }
+            prev = chunk;
+        }
+
+        if (st != null) {
+            for (int i = 0; i < result.size(); i++) {
+                if (result.type(i) == TokenType.IDENTIFIER
+                        && CharClass.isUpperCase(tokenSource.charAt(result.start(i)))) {
+                    st.add(text, result.start(i), result.length(i), "IDENTIFIER", result.line(i));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Chunk scanChunk(char[] text, int length, CharSequence source,
+                                   int from, int to, int line, int col) {
+        DeferredErrors errors = new DeferredErrors();
+        ManualScanner scanner = new ManualScanner(text, length, null, errors);
+        errors.scanner = scanner;
+        scanner.seek(from, line, col);
+
+        Chunk chunk = new Chunk();
+        chunk.tokens = new TokenBuffer(source, Math.max(64, (to - from) / 4));
+        chunk.errors = errors.list;
+        while (true) {
+            TokenType type = scanner.next();
+            if (type == TokenType.EOF) {
+                chunk.resume = length;
+                chunk.atEof = true;
+                break;
+            }
+            if (scanner.startOffset() >= to) {
+                chunk.resume = scanner.startOffset();
+                chunk.resumeLine = scanner.startLine();
+                chunk.resumeTokenLine = scanner.line();
+                chunk.resumeColumn = scanner.column() - 1;
+                break;
+            }
+            chunk.tokens.add(type, scanner.startOffset(), scanner.length(), scanner.line(), scanner.column());
+        }
+        return chunk;
+    }
+
+    private static int firstTokenAt(TokenBuffer tokens, int offset) {
+        int lo = 0, hi = tokens.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (tokens.start(mid) < offset) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // Copies the chunk's tokens from index first on, and replays the errors
+    // reported after offset from
+    private static void append(Chunk chunk, int first, int from, TokenBuffer result, ErrorHandler eh) {
+        TokenBuffer tokens = chunk.tokens;
+        for (int i = first; i < tokens.size(); i++) {
+            result.add(tokens.type(i), tokens.start(i), tokens.length(i),
+                       tokens.line(i) + chunk.lineOffset, tokens.column(i));
+        }
+        for (DeferredError e : chunk.errors) {
+            if (e.position > from && e.position <= chunk.resume) {
+                eh.reportError(e.type, e.line + chunk.lineOffset, e.column, e.lexeme, e.reason);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * RegressionChecks
+ * -------------------------
+ * Runs the scanners on inputs that once gave wrong results, built here at
+ * run time, and checks that they no longer do. Prints one line per check
+ * and exits with status 1 if any of them fails.
+ *
+ * Usage: java src.RegressionChecks
+ */
+
+
+package src;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class RegressionChecks {
+    private static int failures;
+
+    private static void check(String name, boolean ok, String detail) {
+        if (ok) {
+            System.out.println("ok      " + name);
+        } else {
+            failures++;
+            System.out.println("FAILED  " + name + ": " + detail);
+        }
+    }
+
+    // Keeps errors as lines of text instead of printing them
+    private static class RecordingErrors extends ErrorHandler {
+        final StringBuilder lines = new StringBuilder();
+
+        @Override
+        public void reportError(String type, int line, int column, String lexeme, String reason) {
+            lines.append(type).append(' ').append(line).append(':').append(column).append(' ')
+                 .append(lexeme).append(' ').append(reason).append('\n');
+        }
+    }
+
+    // Tokens and errors of a sequential scan, one per line
+    private static String sequential(String text) {
+        RecordingErrors errors = new RecordingErrors();
+        ManualScanner scanner = new ManualScanner(text.toCharArray(), text.length(), null, errors);
+        StringBuilder sb = new StringBuilder();
+        while (scanner.next() != TokenType.EOF) {
+            sb.append(scanner.type()).append(' ').append(scanner.startOffset()).append(' ').append(scanner.length())
+              .append(' ').append(scanner.line()).append(':').append(scanner.column()).append('\n');
+        }
+        return sb.append(errors.lines).toString();
+    }
+
+    private static String parallel(String text, int chunkSize) {
+        RecordingErrors errors = new RecordingErrors();
+        TokenBuffer tokens = ParallelScanner.scan(text, null, errors, ForkJoinPool.commonPool(), chunkSize);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            sb.append(tokens.type(i)).append(' ').append(tokens.start(i)).append(' ').append(tokens.length(i))
+              .append(' ').append(tokens.line(i)).append(':').append(tokens.column(i)).append('\n');
+        }
+        return sb.append(errors.lines).toString();
+    }
+
+    // A chunk that starts after a newline swallowed by a bad char literal,
+    // which leaves the column running on, must not be taken to start a line
+    private static void parallelColumns() {
+        for (String text : new String[] {"'\nX = 1;\n", "'\\\nX;\n"}) {
+            String expected = sequential(text);
+            String actual = parallel(text, 1);
+            check("ParallelScanner columns on " + text.replace("\\", "\\\\").replace("\n", "\\n"),
+                  expected.equals(actual), "expected\n" + expected + "got\n" + actual);
+        }
+    }
+
+    // Counts errors without keeping them
+    private static class CountingErrors extends ErrorHandler {
+        int count;
+
+        CountingErrors() {
+            super(false);
+        }
+
+        @Override
+        public void reportError(String type, int line, int column, String lexeme, String reason) {
+            count++;
+        }
+    }
+
+    // A million skipped items in a row must not recurse once per item
+    private static void longSkips() {
+        int n = 1_000_000;
+        String[][] runs = {
+            {"line comments", "## comment\n"},
+            {"block comments", "#* block *#\n"},
+            {"invalid characters", "@"},
+        };
+        for (String[] run : runs) {
+            StringBuilder sb = new StringBuilder(n * run[1].length() + 1);
+            for (int i = 0; i < n; i++) sb.append(run[1]);
+            sb.append('X');
+            CountingErrors errors = new CountingErrors();
+            ManualScanner scanner = new ManualScanner((CharSequence) sb, null, errors);
+            String name = "ManualScanner skips " + n + " " + run[0];
+            try {
+                TokenType first = scanner.next();
+                int lines = run[1].endsWith("\n") ? n + 1 : 1;
+                int expectedErrors = run[1].equals("@") ? n : 0;
+                boolean ok = first == TokenType.IDENTIFIER && scanner.line() == lines
+                        && scanner.next() == TokenType.EOF && errors.count == expectedErrors;
+                check(name, ok, first + " on line " + scanner.line() + " after " + errors.count + " errors");
+            } catch (StackOverflowError e) {
+                check(name, false, "StackOverflowError");
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        parallelColumns();
+        longSkips();
+        if (failures > 0) {
+            System.out.println(failures + " failed");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * ScannerBenchmark
+ * -------------------------
+ * Measures scanner throughput over synthetic corpora from CorpusGenerator.
+ * Each benchmark case is run for a number of warm-up iterations, then timed
+ * over the measured iterations; the report gives tokens per second, source
+ * characters per second and bytes allocated per token (taken from the
+ * per-thread allocation counter of the HotSpot management bean). The cases
+ * compare ManualScanner.nextToken() with Yylex.yylex(), and the cursor API of
+ * both scanners. Yylex reads through a StringReader into its default 16 KB
+ * buffer, through a 64 KB buffer (jflex-buffer-64k), or straight from a
+ * char[] of the corpus (jflex-char-array, and jflex-reset, which reuses one
+ * scanner). The direct-* cases run DirectScanner, the DFA of Yylex compiled
+ * to code by DirectScannerGenerator, over the same char[]. The manual-println
+ * case prints every token the way the scanner used to (String.format through
+ * an autoflushing PrintStream), and the *-sink cases write the same tokens
+ * through each TokenSink; all output is discarded. manual-pooled scans with a
+ * scanner, symbol table and error handler reused from a ScannerPool. The
+ * words-* cases isolate character classification by counting words with the
+ * CharClass table and with java.lang.Character.
+ *
+ * This is a quick harness in a single JVM, timed with System.nanoTime()
+ * after a hand-written warm-up, with no forks and no error bounds; its
+ * figures are an approximation. The JMH benchmarks in bench/ (ScannerJmh)
+ * are the reference numbers for comparing scanner changes.
+ *
+ * Usage: java src.ScannerBenchmark [--size chars] [--mix mixed|comment|string|identifier]
+ *                                  [--warmup n] [--iterations n] [--case name]...
+ */
+
+
+package src;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ScannerBenchmark {
+
+    /** A benchmark case: scans the text once and returns the number of tokens. */
+    interface Case {
+        long run(String text) throws IOException;
+    }
+
+    private static final Map<String, Case> CASES = new LinkedHashMap<>();
+    private static final ScannerPool POOL = new ScannerPool(1);
+    private static final Yylex YYLEX = new Yylex(new char[0], 0, 0);
+
+    // The corpus as a char[], made once so that the in-memory cases time scanning only
+    private static String charsText;
+    private static char[] chars;
+
+    private static char[] chars(String text) {
+        if (text != charsText) {
+            chars = text.toCharArray();
+            charsText = text;
+        }
+        return chars;
+    }
+
+    static {
+        CASES.put("manual-nextToken", text -> {
+            ManualScanner scanner = new ManualScanner((CharSequence) text, new SymbolTable(), new ErrorHandler(false));
+            long tokens = 0;
+            while (scanner.nextToken().type != TokenType.EOF) tokens++;
+            return tokens;
+        });
+        CASES.put("manual-cursor", text -> {
+            ManualScanner scanner = new ManualScanner((CharSequence) text, new SymbolTable(), new ErrorHandler(false));
+            long tokens = 0;
+            while (scanner.next() != TokenType.EOF) tokens++;
+            return tokens;
+        });
+        CASES.put("manual-pooled", text -> {
+            try (ScannerPool.Lease lease = POOL.acquire(text)) {
+                ManualScanner scanner = lease.scanner();
+                long tokens = 0;
+                while (scanner.next() != TokenType.EOF) tokens++;
+                return tokens;
+            }
+        });
+        CASES.put("jflex-yylex", text -> {
+            Yylex scanner = new Yylex(new StringReader(text));
+            long tokens = 0;
+            while (scanner.yylex() != null) tokens++;
+            return tokens;
+        });
+        CASES.put("jflex-cursor", text -> {
+            Yylex scanner = new Yylex(new StringReader(text));
+            long tokens = 0;
+            while (scanner.next() != TokenType.EOF) tokens++;
+            return tokens;
+        });
+        CASES.put("jflex-buffer-64k", text -> {
+            Yylex scanner = new Yylex(new StringReader(text), 1 << 16);
+            long tokens = 0;
+            while (scanner.next() != TokenType.EOF) tokens++;
+            return tokens;
+        });
+        CASES.put("jflex-char-array", text -> {
+            char[] chars = chars(text);
+            Yylex scanner = new Yylex(chars, 0, chars.length);
+            long tokens = 0;
+            while (scanner.next() != TokenType.EOF) tokens++;
+            return tokens;
+        });
+        CASES.put("jflex-reset", text -> {
+            char[] chars = chars(text);
+            YYLEX.reset(chars, 0, chars.length);
+            long tokens = 0;
+            while (YYLEX.next() != TokenType.EOF) tokens++;
+            return tokens;
+        });
+        CASES.put("direct-cursor", text -> {
+            char[] chars = chars(text);
+            DirectScanner scanner = new DirectScanner(chars, 0, chars.length);
+            long tokens = 0;
+            while (scanner.next() != TokenType.EOF) tokens++;
+            return tokens;
+        });
+        CASES.put("direct-null-sink", text -> {
+            char[] chars = chars(text);
+            DirectScanner scanner = new DirectScanner(chars, 0, chars.length);
+            TokenSink sink = new NullTokenSink();
+            long tokens = 0;
+            while (scanner.next() != TokenType.EOF) {
+                scanner.emit(sink);
+                tokens++;
+            }
+            return tokens;
+        });
+        CASES.put("manual-println", text -> {
+            ManualScanner scanner = new ManualScanner((CharSequence) text, new SymbolTable(), new ErrorHandler(false));
+            PrintStream out = new PrintStream(OutputStream.nullOutputStream(), true);
+            long tokens = 0;
+            Token token;
+            while ((token = scanner.nextToken()).type != TokenType.EOF) {
+                out.println(String.format("<%s, \"%s\", Line: %d, Col: %d>", token.type, token.lexeme, token.line, token.column));
+                tokens++;
+            }
+            return tokens;
+        });
+        CASES.put("manual-text-sink", text -> sink(text, new TextTokenSink(OutputStream.nullOutputStream())));
+        CASES.put("manual-binary-sink", text -> sink(text, new BinaryTokenSink(OutputStream.nullOutputStream())));
+        CASES.put("manual-null-sink", text -> sink(text, new NullTokenSink()));
+        CASES.put("words-charclass", text -> {
+            long words = 0;
+            int i = 0, n = text.length();
+            while (i < n) {
+                if (CharClass.isLetter(text.charAt(i))) {
+                    words++;
+                    while (++i < n && CharClass.isWordPart(text.charAt(i))) { }
+                } else {
+                    i++;
+                }
+            }
+            return words;
+        });
+        CASES.put("words-character", text -> {
+            long words = 0;
+            int i = 0, n = text.length();
+            while (i < n) {
+                if (Character.isLetter(text.charAt(i))) {
+                    words++;
+                    while (++i < n && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '_')) { }
+                } else {
+                    i++;
+                }
+            }
+            return words;
+        });
+    }
+
+    private static long sink(String text, TokenSink sink) throws IOException {
+        ManualScanner scanner = new ManualScanner((CharSequence) text, new SymbolTable(), new ErrorHandler(false));
+        long tokens = 0;
+        while (scanner.next() != TokenType.EOF) {
+            scanner.emit(sink);
+            tokens++;
+        }
+        sink.flush();
+        return tokens;
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int size = 8 << 20;
+        CorpusGenerator.Mix mix = CorpusGenerator.Mix.MIXED;
+        int warmup = 5;
+        int iterations = 10;
+        List<String> selected = new ArrayList<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--size": size = Integer.parseInt(args[i + 1]); break;
+                case "--mix": mix = CorpusGenerator.Mix.parse(args[i + 1]); break;
+                case "--warmup": warmup = Integer.parseInt(args[i + 1]); break;
+                case "--iterations": iterations = Integer.parseInt(args[i + 1]); break;
+                case "--case": selected.add(args[i + 1]); break;
+                default: System.err.println("Unknown option: " + args[i]);
+            }
+        }
+        if (selected.isEmpty()) selected.addAll(CASES.keySet());
+
+        String text = CorpusGenerator.generate(size, mix, 42);
+        System.out.println("--- Scanner Benchmark ---");
+        System.out.printf("Corpus: %s, %d chars, %d warm-up + %d measured iterations%n",
+            mix, text.length(), warmup, iterations);
+        System.out.printf("%-24s %-12s %-14s %-14s %-14s%n", "Case", "ms/op", "Mtokens/s", "MB/s", "Bytes/token");
+
+        for (String name : selected) {
+            Case c = CASES.get(name);
+            if (c == null) {
+                System.err.println("Unknown case: " + name);
+                continue;
+            }
+            for (int i = 0; i < warmup; i++) c.run(text);
+
+            long tokens = 0;
+            long allocStart = allocatedBytes();
+            long timeStart = System.nanoTime();
+            for (int i = 0; i < iterations; i++) tokens += c.run(text);
+            long elapsed = System.nanoTime() - timeStart;
+            long allocated = allocatedBytes() - allocStart;
+
+            double seconds = elapsed / 1e9;
+            System.out.printf("%-24s %-12.2f %-14.2f %-14.2f %-14s%n", name,
+                elapsed / 1e6 / iterations,
+                tokens / seconds / 1e6,
+                (double) text.length() * iterations / seconds / (1 << 20),
+                allocStart < 0 ? "n/a" : String.format("%.1f", (double) allocated / tokens));
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/**
+ * ScannerBuilder
+ * -------------------------
+ * Builds the scanner's DFA in-process from its token rules, without JFlex.
+ * The rules below are those of Scanner.flex, in the same order and regex
+ * syntax, and must be kept in step with it. They go through an NFA by
+ * Thompson's construction, a DFA by subset construction, DFAMinimizer
+ * (states of the same token type only) and alphabet compression, which is
+ * also applied before minimizing to give it fewer columns to refine; the
+ * number of states and symbols after each stage, and the time it took, are
+ * kept for report(). As in JFlex, the longest match wins, and of matches of
+ * the same length the rule listed first.
+ *
+ * The multi-line comment rule, "#*" ~"*#" in Scanner.flex, is written out
+ * without JFlex's upto operator, which NFA does not parse.
+ *
+ * Usage: java src.ScannerBuilder
+ */
+
+
+package src;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ScannerBuilder {
+
+    private static final class Rule {
+        final String regex;
+        final TokenType type;   // null for text that is skipped
+
+        Rule(String regex, TokenType type) {
+            this.regex = regex;
+            this.type = type;
+        }
+    }
+
+    private static final String[][] MACROS = {
+        {"LineTerminator", "\\r|\\n|\\r\\n"},
+        {"WhiteSpace", "{LineTerminator} | [ \\t\\f]"},
+        {"Identifier", "[A-Z][a-zA-Z0-9_]{0,30}"},
+        {"Integer", "[+-]?[0-9]+"},
+        {"Float", "[+-]?[0-9]+\\.[0-9]{1,6}([eE][+-]?[0-9]+)?"},
+        {"String", "\\\"([^\\\\\\\"]|\\\\.)*\\\""},
+        {"Char", "\\'([^\\\\\\']|\\\\.)\\'"},
+    };
+
+    private static final Rule[] RULES = {
+        // Keywords
+        new Rule("\"start\"", TokenType.START),
+        new Rule("\"finish\"", TokenType.FINISH),
+        new Rule("\"loop\"", TokenType.LOOP),
+        new Rule("\"condition\"", TokenType.CONDITION),
+        new Rule("\"declare\"", TokenType.DECLARE),
+        new Rule("\"output\"", TokenType.OUTPUT),
+        new Rule("\"input\"", TokenType.INPUT),
+        new Rule("\"function\"", TokenType.FUNCTION),
+        new Rule("\"return\"", TokenType.RETURN),
+        new Rule("\"break\"", TokenType.BREAK),
+        new Rule("\"continue\"", TokenType.CONTINUE),
+        new Rule("\"else\"", TokenType.ELSE),
+
+        // Booleans
+        new Rule("\"true\"", TokenType.BOOLEAN),
+        new Rule("\"false\"", TokenType.BOOLEAN),
+
+        // Literals
+        new Rule("{Identifier}", TokenType.IDENTIFIER),
+        new Rule("{Integer}", TokenType.INTEGER),
+        new Rule("{Float}", TokenType.FLOAT),
+        new Rule("{String}", TokenType.STRING),
+        new Rule("{Char}", TokenType.CHAR),
+
+        // Operators
+        new Rule("\"**\"", TokenType.ARITHMETIC_OP),
+        new Rule("\"==\"", TokenType.RELATIONAL_OP),
+        new Rule("\"!=\"", TokenType.RELATIONAL_OP),
+        new Rule("\"<=\"", TokenType.RELATIONAL_OP),
+        new Rule("\">=\"", TokenType.RELATIONAL_OP),
+        new Rule("\"&&\"", TokenType.LOGICAL_OP),
+        new Rule("\"||\"", TokenType.LOGICAL_OP),
+        new Rule("\"++\"", TokenType.INC_DEC_OP),
+        new Rule("\"--\"", TokenType.INC_DEC_OP),
+        new Rule("\"+=\"", TokenType.ASSIGNMENT_OP),
+        new Rule("\"-=\"", TokenType.ASSIGNMENT_OP),
+        new Rule("\"*=\"", TokenType.ASSIGNMENT_OP),
+        new Rule("\"/=\"", TokenType.ASSIGNMENT_OP),
+
+        new Rule("\"+\"", TokenType.ARITHMETIC_OP),
+        new Rule("\"-\"", TokenType.ARITHMETIC_OP),
+        new Rule("\"*\"", TokenType.ARITHMETIC_OP),
+        new Rule("\"/\"", TokenType.ARITHMETIC_OP),
+        new Rule("\"%\"", TokenType.ARITHMETIC_OP),
+        new Rule("\"=\"", TokenType.ASSIGNMENT_OP),
+        new Rule("\"<\"", TokenType.RELATIONAL_OP),
+        new Rule("\">\"", TokenType.RELATIONAL_OP),
+        new Rule("\"!\"", TokenType.LOGICAL_OP),
+
+        // Punctuators
+        new Rule("\"(\"", TokenType.LPAREN),
+        new Rule("\")\"", TokenType.RPAREN),
+        new Rule("\"{\"", TokenType.LBRACE),
+        new Rule("\"}\"", TokenType.RBRACE),
+        new Rule("\"[\"", TokenType.LBRACKET),
+        new Rule("\"]\"", TokenType.RBRACKET),
+        new Rule("\",\"", TokenType.COMMA),
+        new Rule("\";\"", TokenType.SEMICOLON),
+        new Rule("\":\"", TokenType.COLON),
+
+        // Comments: up to the first *# (a run of *s, then #)
+        new Rule("\"##\" [^\\r\\n]*", null),
+        new Rule("\"#*\" ([^*] | \"*\"+ [^*#])* \"*\"+ \"#\"", null),
+
+        // Whitespace
+        new Rule("{WhiteSpace}", null),
+
+        // Error fallback
+        new Rule(".", TokenType.ERROR),
+    };
+
+    private final DFA dfa;
+    private final List<TokenType> types = new ArrayList<>();   // Index is the DFA kind; null for skipped text
+    private final int rules;
+    private final int nfaStates;
+    private final int subsetStates;
+    private final int subsetSymbols;
+    private final int minimalStates;
+    private final long[] nanos = new long[4];  // Thompson, subset, minimize, compress
+
+    public ScannerBuilder() {
+        long started = System.nanoTime();
+        Map<String, String> macros = new LinkedHashMap<>();
+        for (String[] macro : MACROS) macros.put(macro[0], macro[1]);
+        NFA nfa = new NFA();
+        for (Rule rule : RULES) nfa.add(rule.regex, macros);
+        rules = nfa.rules();
+        nfaStates = nfa.states();
+        long built = System.nanoTime();
+
+        DFA subset = nfa.toDFA().compress();
+        subsetStates = subset.states();
+        subsetSymbols = subset.symbols();
+        long subsetDone = System.nanoTime();
+
+        // Kinds go from rule numbers to token types, so that rules of one type may merge
+        int[] kinds = new int[subset.states()];
+        for (int s = 0; s < kinds.length; s++) {
+            int rule = subset.kind(s);
+            if (rule < 0) continue;
+            TokenType type = RULES[rule].type;
+            kinds[s] = types.indexOf(type);
+            if (kinds[s] < 0) {
+                kinds[s] = types.size();
+                types.add(type);
+            }
+        }
+        DFA minimal = DFAMinimizer.minimize(subset.withKinds(kinds));
+        minimalStates = minimal.states();
+        long minimized = System.nanoTime();
+
+        dfa = minimal.compress();
+        long compressed = System.nanoTime();
+
+        nanos[0] = built - started;
+        nanos[1] = subsetDone - built;
+        nanos[2] = minimized - subsetDone;
+        nanos[3] = compressed - minimized;
+    }
+
+    /** The minimized, compressed DFA; the kind of an accepting state indexes types(). */
+    public DFA dfa() { return dfa; }
+
+    /** The token type of each kind, null for text that is skipped. */
+    public List<TokenType> types() { return types; }
+
+    public int subsetStates() { return subsetStates; }
+
+    public int subsetSymbols() { return subsetSymbols; }
+
+    /** Size and build time of every stage. */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-22s %-10s %-10s %-10s%n", "Stage", "States", "Symbols", "ms"));
+        sb.append(String.format("%-22s %-10d %-10s %-10.2f%n", "Thompson NFA", nfaStates, "-", nanos[0] / 1e6));
+        sb.append(String.format("%-22s %-10d %-10d %-10.2f%n", "Subset construction", subsetStates, subsetSymbols, nanos[1] / 1e6));
+        sb.append(String.format("%-22s %-10d %-10d %-10.2f%n", "Minimization", minimalStates, subsetSymbols, nanos[2] / 1e6));
+        sb.append(String.format("%-22s %-10d %-10d %-10.2f%n", "Alphabet compression", dfa.states(), dfa.symbols(), nanos[3] / 1e6));
+        long total = nanos[0] + nanos[1] + nanos[2] + nanos[3];
+        sb.append(String.format("%d rules, %d token kinds, %.2f ms in all%n", rules, types.size(), total / 1e6));
+        return sb.toString();
+    }
+
+    public static void main(String[] args) {
+        System.out.println("--- Scanner DFA from the token rules ---");
+        System.out.print(new ScannerBuilder().report());
+    }
+}
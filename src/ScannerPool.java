@@ -0,0 +1,105 @@
+/**
+ * ScannerPool
+ * -------------------------
+ * Keeps ManualScanners, each with its own SymbolTable and ErrorHandler, for
+ * programs that scan many small sources one after another, such as a server
+ * answering requests. acquire() hands out an idle scanner reset onto the new
+ * source, with its table and handler cleared; closing the lease gives it
+ * back. Since reset() and clear() keep the buffers they already have, a
+ * warmed-up pool scans without allocating beyond the strings the caller
+ * asks for (and error messages).
+ *
+ * acquire() never waits: when every scanner is in use a new one is made.
+ * At most capacity idle scanners are kept, the rest are left to the garbage
+ * collector. The pool may be shared between threads; a lease may not.
+ */
+
+
+package src;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ScannerPool {
+
+    /** A scanner borrowed from the pool, with the table and handler it fills. */
+    public static final class Lease implements AutoCloseable {
+        private final ScannerPool pool;
+        private final SymbolTable symbols = new SymbolTable();
+        private final ErrorHandler errors = new ErrorHandler(false);
+        private final ManualScanner scanner = new ManualScanner((CharSequence) "", symbols, errors);
+        private boolean open;
+
+        private Lease(ScannerPool pool) {
+            this.pool = pool;
+        }
+
+        public ManualScanner scanner() { return scanner; }
+
+        public SymbolTable symbols() { return symbols; }
+
+        public ErrorHandler errors() { return errors; }
+
+        /** Returns the scanner to the pool; it must not be used afterwards. */
+        @Override
+        public void close() {
+            if (!open) return;
+            open = false;
+            pool.idle.offer(this);
+        }
+    }
+
+    private final ArrayBlockingQueue<Lease> idle;
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+
+    /** A pool that keeps up to capacity idle scanners. */
+    public ScannerPool(int capacity) {
+        this.idle = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /** A scanner over source, which is copied into the scanner's buffer. */
+    public Lease acquire(CharSequence source) {
+        Lease lease = take();
+        lease.scanner.reset(source);
+        return lease;
+    }
+
+    /** A scanner over the first length chars of source, which are not copied. */
+    public Lease acquire(char[] source, int length) {
+        Lease lease = take();
+        lease.scanner.reset(source, length);
+        return lease;
+    }
+
+    /** A scanner over the bytes left in source, decoded with the platform charset. */
+    public Lease acquire(ByteBuffer source) {
+        Lease lease = take();
+        lease.scanner.reset(source);
+        return lease;
+    }
+
+    private Lease take() {
+        Lease lease = idle.poll();
+        if (lease == null) {
+            lease = new Lease(this);
+            created.incrementAndGet();
+        } else {
+            lease.symbols.clear();
+            lease.errors.clear();
+            reused.incrementAndGet();
+        }
+        lease.open = true;
+        return lease;
+    }
+
+    /** Number of scanners made because none was idle. */
+    public long created() { return created.get(); }
+
+    /** Number of leases served by an idle scanner. */
+    public long reused() { return reused.get(); }
+
+    /** Number of idle scanners held. */
+    public int idle() { return idle.size(); }
+}
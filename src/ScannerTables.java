@@ -0,0 +1,113 @@
+/**
+ * ScannerTables
+ * -------------------------
+ * The scanner's DFA and the token type of each of its kinds, precompiled
+ * to a binary file so that TableScanner starts without building anything.
+ * Yylex unpacks its tables from run-length packed Strings in its static
+ * initializer on every start; these are written once by
+ * DirectScannerGenerator, next to DirectScanner.java and from the same
+ * minimized DFA, and read back with one bulk copy per table.
+ *
+ * Layout, little-endian: a magic number, the format version, the number of
+ * TokenType constants the file was written against, the token type of
+ * each kind (an ordinal, or -1 for text that is skipped), then the DFA as
+ * DFA.write() lays it out.
+ */
+
+
+package src;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+public final class ScannerTables {
+    public static final String RESOURCE = "scanner.tables";
+    public static final String FILE = "src/" + RESOURCE;
+    private static final int MAGIC = ('L' << 24) | ('T' << 16) | ('A' << 8) | 'B';
+    private static final int VERSION = 1;
+
+    final DFA dfa;
+    final TokenType[] types;    // Index is the DFA kind; null for skipped text
+
+    ScannerTables(DFA dfa, List<TokenType> types) {
+        this.dfa = dfa;
+        this.types = types.toArray(new TokenType[0]);
+    }
+
+    private ScannerTables(DFA dfa, TokenType[] types) {
+        this.dfa = dfa;
+        this.types = types;
+    }
+
+    int byteSize() {
+        return 4 * (4 + types.length) + dfa.byteSize();
+    }
+
+    public void write(Path file) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(byteSize()).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(TokenType.values().length).putInt(types.length);
+        for (TokenType type : types) buf.putInt(type == null ? -1 : type.ordinal());
+        dfa.write(buf);
+        buf.flip();
+        Files.write(file, buf.array());
+    }
+
+    /** Reads the tables from a file with one read into a heap buffer. */
+    public static ScannerTables read(InputStream in) throws IOException {
+        return read(ByteBuffer.wrap(in.readAllBytes()));
+    }
+
+    /** Reads the tables from a memory-mapped file. */
+    public static ScannerTables map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * The tables in src/scanner.tables under the working directory, or failing
+     * that on the class path. The file is tried first because finding a
+     * resource costs more at start-up than reading it.
+     */
+    public static ScannerTables load() throws IOException {
+        File file = new File(FILE);
+        InputStream in = file.isFile() ? new FileInputStream(file) : ScannerTables.class.getResourceAsStream(RESOURCE);
+        if (in == null) throw new IOException(RESOURCE + " not found; run java src.DirectScannerGenerator");
+        try (in) {
+            return read(in);
+        }
+    }
+
+    private static ScannerTables read(ByteBuffer in) throws IOException {
+        in.order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < 16 || in.getInt() != MAGIC || in.getInt() != VERSION) {
+            throw new IOException("Not a scanner tables file");
+        }
+        TokenType[] values = TokenType.values();
+        if (in.getInt() != values.length) {
+            throw new IOException("Scanner tables are out of date with TokenType; run java src.DirectScannerGenerator");
+        }
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / 4) throw new IOException("Scanner tables file is truncated");
+        TokenType[] types = new TokenType[count];
+        for (int i = 0; i < types.length; i++) {
+            int ordinal = in.getInt();
+            types[i] = ordinal < 0 ? null : values[ordinal];
+        }
+        try {
+            return new ScannerTables(DFA.read(in), types);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Scanner tables file is truncated");
+        }
+    }
+}
@@ -5,45 +5,319 @@
  * storing each symbol’s type, the line where it first appears, and the
  * number of occurrences in the source program. When a symbol is re-used,
  * its frequency counter is updated instead of creating duplicates. The
- * table can be printed in a formatted layout for analysis and debugging.
+ * table can be printed in a formatted layout for analysis and debugging,
+ * or written sorted, paged, or as CSV or JSON with SymbolTableReport.
+ *
+ * Symbols are numbered densely from 0 in the order they are first seen, and
+ * a scanner can hand the id to its tokens instead of the lexeme. The table
+ * is an open-addressing hash over those ids, hashed and compared straight
+ * from a range of the source chars, so a repeated identifier costs no
+ * String. Names are interned into one shared char array, and the type, first
+ * line and frequency of each symbol live in parallel primitive arrays.
  */
 
 
 package src;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
-public class SymbolTable {
-    private static class SymbolInfo {
-        String type;
-        int firstLine;
-        int frequency;
+public class SymbolTable implements Symbols {
+    private static final int INITIAL_CAPACITY = 256;
 
-        SymbolInfo(String type, int line) {
-            this.type = type;
-            this.firstLine = line;
-            this.frequency = 1;
-        }
+    private int[] slots;        // Symbol id + 1, or 0 for an empty slot
+    private int[] hashes;
+    private int[] nameStarts;
+    private int[] nameLengths;
+    private int[] types;        // Index into typeNames
+    private int[] firstLines;
+    private int[] frequencies;
+    private int size = 0;
+
+    private char[] names = new char[64];
+    private int namesLength = 0;
+    private String[] typeNames = new String[4];
+    private int typeCount = 0;
+    private char[] scratch = new char[64];
+
+    public SymbolTable() {
+        this(INITIAL_CAPACITY);
+    }
+
+    SymbolTable(int capacity) {
+        slots = new int[capacity * 2];
+        hashes = new int[capacity];
+        nameStarts = new int[capacity];
+        nameLengths = new int[capacity];
+        types = new int[capacity];
+        firstLines = new int[capacity];
+        frequencies = new int[capacity];
+    }
+
+    @Override
+    public int add(String lexeme, String type, int line) {
+        int length = lexeme.length();
+        if (scratch.length < length) scratch = new char[Math.max(length, scratch.length * 2)];
+        lexeme.getChars(0, length, scratch, 0);
+        return add(scratch, 0, length, type, line);
     }
 
-    private Map<String, SymbolInfo> table = new HashMap<>();
+    @Override
+    public int add(char[] text, int start, int length, String type, int line) {
+        return add(text, start, length, type, line, 1);
+    }
 
-    public void add(String lexeme, String type, int line) {
-        if (table.containsKey(lexeme)) {
-            table.get(lexeme).frequency++;
+    /** As Symbols.addAll, copying the arrays of another SymbolTable straight into an empty one. */
+    @Override
+    public void addAll(Symbols symbols) {
+        if (!(symbols instanceof SymbolTable)) {
+            Symbols.super.addAll(symbols);
+            return;
+        }
+        SymbolTable other = (SymbolTable) symbols;
+        if (size == 0) {
+            copyFrom(other);
         } else {
-            table.put(lexeme, new SymbolInfo(type, line));
+            for (int id = 0; id < other.size; id++) {
+                add(other.names, other.nameStarts[id], other.nameLengths[id],
+                    other.typeNames[other.types[id]], other.firstLines[id], other.frequencies[id]);
+            }
+        }
+    }
+
+    private void copyFrom(SymbolTable other) {
+        slots = other.slots.clone();
+        hashes = other.hashes.clone();
+        nameStarts = other.nameStarts.clone();
+        nameLengths = other.nameLengths.clone();
+        types = other.types.clone();
+        firstLines = other.firstLines.clone();
+        frequencies = other.frequencies.clone();
+        size = other.size;
+        names = other.names.clone();
+        namesLength = other.namesLength;
+        typeNames = other.typeNames.clone();
+        typeCount = other.typeCount;
+    }
+
+    @Override
+    public int add(char[] text, int start, int length, String type, int line, int count) {
+        int hash = hash(text, start, length);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        int id;
+        while ((id = slots[slot] - 1) >= 0) {
+            if (hashes[id] == hash && nameEquals(id, text, start, length)) {
+                frequencies[id] += count;
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        id = size++;
+        if (id == hashes.length) growSymbols();
+        if (namesLength + length > names.length) {
+            names = Arrays.copyOf(names, Math.max(namesLength + length, names.length * 2));
         }
+        System.arraycopy(text, start, names, namesLength, length);
+        nameStarts[id] = namesLength;
+        nameLengths[id] = length;
+        namesLength += length;
+        hashes[id] = hash;
+        types[id] = typeIndex(type);
+        firstLines[id] = line;
+        frequencies[id] = count;
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length) rehash();
+        return id;
+    }
+
+    /** Removes every symbol, keeping the arrays for the next use of the table. */
+    @Override
+    public void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+        namesLength = 0;
+        Arrays.fill(typeNames, 0, typeCount, null);
+        typeCount = 0;
+    }
+
+    @Override
+    public int lookup(char[] text, int start, int length) {
+        int hash = hash(text, start, length);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        int id;
+        while ((id = slots[slot] - 1) >= 0) {
+            if (hashes[id] == hash && nameEquals(id, text, start, length)) return id;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public int lookup(String lexeme) {
+        char[] text = lexeme.toCharArray();
+        return lookup(text, 0, text.length);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String name(int id) {
+        check(id);
+        return new String(names, nameStarts[id], nameLengths[id]);
+    }
+
+    @Override
+    public String type(int id) {
+        check(id);
+        return typeNames[types[id]];
+    }
+
+    @Override
+    public int firstLine(int id) {
+        check(id);
+        return firstLines[id];
+    }
+
+    @Override
+    public int frequency(int id) {
+        check(id);
+        return frequencies[id];
     }
 
     public void printTable() {
-        System.out.println("\n--- Symbol Table ---");
-        System.out.printf("%-20s %-15s %-10s %-10s%n", "Name", "Type", "First Line", "Frequency");
-        for (Map.Entry<String, SymbolInfo> entry : table.entrySet()) {
-            SymbolInfo info = entry.getValue();
-            System.out.printf("%-20s %-15s %-10d %-10d%n", 
-                entry.getKey(), info.type, info.firstLine, info.frequency);
+        try {
+            new SymbolTableReport(this).write(System.out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void check(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("Symbol " + id + " of " + size);
+    }
+
+    // FNV-1a over the chars, then the MurmurHash3 finalizer so that every bit
+    // of the slot index depends on every char. The String.hashCode polynomial
+    // gives equal hashes for many short identifiers ("Aa" and "BB", and every
+    // pair of names built from them), and linear probing turns those into
+    // long runs.
+    static int hash(char[] text, int start, int length) {
+        int h = 0x811c9dc5;
+        for (int i = start; i < start + length; i++) h = (h ^ text[i]) * 0x01000193;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    private boolean nameEquals(int id, char[] text, int start, int length) {
+        if (nameLengths[id] != length) return false;
+        int from = nameStarts[id];
+        for (int i = 0; i < length; i++) {
+            if (names[from + i] != text[start + i]) return false;
+        }
+        return true;
+    }
+
+    private int typeIndex(String type) {
+        for (int i = 0; i < typeCount; i++) {
+            if (typeNames[i].equals(type)) return i;
+        }
+        if (typeCount == typeNames.length) typeNames = Arrays.copyOf(typeNames, typeCount * 2);
+        typeNames[typeCount] = type;
+        return typeCount++;
+    }
+
+    private void growSymbols() {
+        int capacity = hashes.length * 2;
+        hashes = Arrays.copyOf(hashes, capacity);
+        nameStarts = Arrays.copyOf(nameStarts, capacity);
+        nameLengths = Arrays.copyOf(nameLengths, capacity);
+        types = Arrays.copyOf(types, capacity);
+        firstLines = Arrays.copyOf(firstLines, capacity);
+        frequencies = Arrays.copyOf(frequencies, capacity);
+    }
+
+    /** Rough number of bytes the table holds. */
+    long footprint() {
+        return 4L * slots.length + 24L * hashes.length + 2L * names.length;
+    }
+
+    /** Bytes that write() needs for this table. */
+    int byteSize() {
+        int bytes = 12 + 2 * namesLength + 24 * size;
+        for (int i = 0; i < typeCount; i++) bytes += 4 + 2 * typeNames[i].length();
+        return bytes;
+    }
+
+    /** Writes the table to out: the type names, the interned names, then the per-symbol arrays. */
+    void write(ByteBuffer out) {
+        out.putInt(typeCount);
+        for (int i = 0; i < typeCount; i++) {
+            out.putInt(typeNames[i].length());
+            for (int j = 0; j < typeNames[i].length(); j++) out.putChar(typeNames[i].charAt(j));
+        }
+        out.putInt(namesLength);
+        out.asCharBuffer().put(names, 0, namesLength);
+        out.position(out.position() + 2 * namesLength);
+        out.putInt(size);
+        for (int[] column : new int[][] {hashes, nameStarts, nameLengths, types, firstLines, frequencies}) {
+            out.asIntBuffer().put(column, 0, size);
+            out.position(out.position() + 4 * size);
+        }
+    }
+
+    /** Reads a table written by write() from in. */
+    static SymbolTable read(ByteBuffer in) {
+        SymbolTable table = new SymbolTable(1);
+        int typeCount = in.getInt();
+        table.typeNames = new String[Math.max(4, typeCount)];
+        for (int i = 0; i < typeCount; i++) {
+            char[] name = new char[in.getInt()];
+            in.asCharBuffer().get(name);
+            in.position(in.position() + 2 * name.length);
+            table.typeNames[i] = new String(name);
+        }
+        table.typeCount = typeCount;
+        table.namesLength = in.getInt();
+        table.names = new char[Math.max(64, table.namesLength)];
+        in.asCharBuffer().get(table.names, 0, table.namesLength);
+        in.position(in.position() + 2 * table.namesLength);
+
+        int size = in.getInt();
+        int capacity = Math.max(16, size);
+        table.hashes = new int[capacity];
+        table.nameStarts = new int[capacity];
+        table.nameLengths = new int[capacity];
+        table.types = new int[capacity];
+        table.firstLines = new int[capacity];
+        table.frequencies = new int[capacity];
+        for (int[] column : new int[][] {table.hashes, table.nameStarts, table.nameLengths,
+                                         table.types, table.firstLines, table.frequencies}) {
+            in.asIntBuffer().get(column, 0, size);
+            in.position(in.position() + 4 * size);
+        }
+        table.size = size;
+        table.slots = new int[Integer.highestOneBit(capacity) * 2];
+        table.rehash();
+        return table;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = id + 1;
         }
     }
 }
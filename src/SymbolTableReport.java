@@ -0,0 +1,231 @@
+/**
+ * SymbolTableReport
+ * -------------------------
+ * Writes the contents of a SymbolTable, or any other Symbols, as a padded
+ * text table (the layout of printTable), as CSV or as JSON. Rows can be
+ * sorted by name, frequency or first line, and cut down to the top N or to
+ * one page. Everything goes through one large BufferedWriter and rows are
+ * formatted by hand, so writing a table of hundreds of thousands of symbols
+ * costs a few buffer flushes rather than a printf and a flush per row.
+ */
+
+
+package src;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+public class SymbolTableReport {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String NEWLINE = System.lineSeparator();
+
+    public enum Sort {
+        ID,          // Order of first appearance
+        NAME,
+        FREQUENCY,   // Most frequent first
+        FIRST_LINE;
+
+        public static Sort parse(String name) {
+            switch (name.toLowerCase()) {
+                case "id": return ID;
+                case "name": return NAME;
+                case "frequency": return FREQUENCY;
+                case "line": case "first-line": return FIRST_LINE;
+                default: throw new IllegalArgumentException("Unknown sort: " + name);
+            }
+        }
+    }
+
+    public enum Format {
+        TABLE, CSV, JSON;
+
+        public static Format parse(String name) {
+            return valueOf(name.toUpperCase());
+        }
+    }
+
+    private final Symbols table;
+    private Sort sort = Sort.ID;
+    private Format format = Format.TABLE;
+    private int offset = 0;
+    private int limit = Integer.MAX_VALUE;
+
+    public SymbolTableReport(Symbols table) {
+        this.table = table;
+    }
+
+    public SymbolTableReport sortBy(Sort sort) {
+        this.sort = sort;
+        return this;
+    }
+
+    public SymbolTableReport format(Format format) {
+        this.format = format;
+        return this;
+    }
+
+    /** Keeps only the first n rows after sorting. */
+    public SymbolTableReport top(int n) {
+        this.offset = 0;
+        this.limit = n;
+        return this;
+    }
+
+    /** Keeps only page number page (from 0) of pageSize rows after sorting. */
+    public SymbolTableReport page(int page, int pageSize) {
+        this.offset = (int) Math.min((long) page * pageSize, Integer.MAX_VALUE);
+        this.limit = pageSize;
+        return this;
+    }
+
+    /** Symbol ids in report order, after sorting and paging. */
+    public int[] ids() {
+        int size = table.size();
+        int[] ids;
+        switch (sort) {
+            case NAME: {
+                String[] names = new String[size];
+                Integer[] boxed = new Integer[size];
+                for (int id = 0; id < size; id++) {
+                    names[id] = table.name(id);
+                    boxed[id] = id;
+                }
+                Arrays.sort(boxed, (a, b) -> names[a].compareTo(names[b]));
+                ids = new int[size];
+                for (int i = 0; i < size; i++) ids[i] = boxed[i];
+                break;
+            }
+            case FREQUENCY:
+            case FIRST_LINE: {
+                // Sort key in the high half and id in the low half, so ties keep first-seen order
+                long[] keys = new long[size];
+                for (int id = 0; id < size; id++) {
+                    long key = sort == Sort.FREQUENCY
+                        ? Integer.MAX_VALUE - (long) table.frequency(id)
+                        : table.firstLine(id) & 0xffffffffL;
+                    keys[id] = (key << 32) | id;
+                }
+                Arrays.sort(keys);
+                ids = new int[size];
+                for (int i = 0; i < size; i++) ids[i] = (int) keys[i];
+                break;
+            }
+            default:
+                ids = new int[size];
+                for (int id = 0; id < size; id++) ids[id] = id;
+        }
+        int from = Math.min(offset, size);
+        int to = (int) Math.min((long) from + limit, size);
+        return (from == 0 && to == size) ? ids : Arrays.copyOfRange(ids, from, to);
+    }
+
+    /** Writes the report to out and flushes it; out is not closed. */
+    public void write(OutputStream out) throws IOException {
+        write(new OutputStreamWriter(out));
+    }
+
+    /** Writes the report to out and flushes it; out is not closed. */
+    public void write(Writer out) throws IOException {
+        BufferedWriter w = new BufferedWriter(out, BUFFER_SIZE);
+        int[] ids = ids();
+        switch (format) {
+            case CSV:
+                w.write("name,type,first_line,frequency");
+                w.write(NEWLINE);
+                for (int id : ids) {
+                    csv(w, table.name(id));
+                    w.write(',');
+                    csv(w, table.type(id));
+                    w.write(',');
+                    w.write(Integer.toString(table.firstLine(id)));
+                    w.write(',');
+                    w.write(Integer.toString(table.frequency(id)));
+                    w.write(NEWLINE);
+                }
+                break;
+            case JSON:
+                w.write('[');
+                for (int i = 0; i < ids.length; i++) {
+                    int id = ids[i];
+                    w.write(i == 0 ? NEWLINE : "," + NEWLINE);
+                    w.write("  {\"name\": ");
+                    json(w, table.name(id));
+                    w.write(", \"type\": ");
+                    json(w, table.type(id));
+                    w.write(", \"firstLine\": ");
+                    w.write(Integer.toString(table.firstLine(id)));
+                    w.write(", \"frequency\": ");
+                    w.write(Integer.toString(table.frequency(id)));
+                    w.write('}');
+                }
+                w.write(ids.length == 0 ? "]" : NEWLINE + "]");
+                w.write(NEWLINE);
+                break;
+            default:
+                // Same layout as printf("%-20s %-15s %-10d %-10d%n")
+                w.write(NEWLINE + "--- Symbol Table ---" + NEWLINE);
+                pad(w, "Name", 20);
+                pad(w, "Type", 15);
+                pad(w, "First Line", 10);
+                w.write("Frequency ");
+                w.write(NEWLINE);
+                for (int id : ids) {
+                    pad(w, table.name(id), 20);
+                    pad(w, table.type(id), 15);
+                    pad(w, Integer.toString(table.firstLine(id)), 10);
+                    String frequency = Integer.toString(table.frequency(id));
+                    w.write(frequency);
+                    for (int i = frequency.length(); i < 10; i++) w.write(' ');
+                    w.write(NEWLINE);
+                }
+        }
+        w.flush();
+    }
+
+    // Left-justified in width columns, then the column separator
+    private static void pad(Writer w, String s, int width) throws IOException {
+        w.write(s);
+        for (int i = s.length(); i < width; i++) w.write(' ');
+        w.write(' ');
+    }
+
+    private static void csv(Writer w, String s) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            w.write(s);
+            return;
+        }
+        w.write('"');
+        w.write(s.replace("\"", "\"\""));
+        w.write('"');
+    }
+
+    private static void json(Writer w, String s) throws IOException {
+        w.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': w.write("\\\""); break;
+                case '\\': w.write("\\\\"); break;
+                case '\n': w.write("\\n"); break;
+                case '\r': w.write("\\r"); break;
+                case '\t': w.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        w.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        w.write(c);
+                    }
+            }
+        }
+        w.write('"');
+    }
+}
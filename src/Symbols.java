@@ -0,0 +1,48 @@
+/**
+ * Symbols
+ * -------------------------
+ * What scanners and reports need from an identifier table: adding an
+ * identifier (or another use of one), looking it up, reading the entry of a
+ * symbol by its dense id, and clearing the table. SymbolTable implements it
+ * for a single scanner, ConcurrentSymbolTable for many scanner threads
+ * filling one table.
+ */
+
+
+package src;
+
+public interface Symbols {
+
+    int add(String lexeme, String type, int line);
+
+    /** Adds text[start, start + length), or counts another use of it, and returns its id. */
+    int add(char[] text, int start, int length, String type, int line);
+
+    /** Adds count occurrences of text[start, start + length), the first of them at line, and returns its id. */
+    int add(char[] text, int start, int length, String type, int line, int count);
+
+    /** Adds every symbol of other, as if its occurrences had been added here one by one. */
+    default void addAll(Symbols other) {
+        for (int id = 0; id < other.size(); id++) {
+            char[] name = other.name(id).toCharArray();
+            add(name, 0, name.length, other.type(id), other.firstLine(id), other.frequency(id));
+        }
+    }
+
+    /** Returns the id of text[start, start + length), or -1 if it is not in the table. */
+    int lookup(char[] text, int start, int length);
+
+    /** Number of symbols; ids run from 0 to size() - 1. */
+    int size();
+
+    String name(int id);
+
+    String type(int id);
+
+    int firstLine(int id);
+
+    int frequency(int id);
+
+    /** Removes every symbol, so that ids start again from 0. */
+    void clear();
+}
@@ -0,0 +1,198 @@
+/**
+ * TableScanner
+ * -------------------------
+ * Scans in-memory text into the same tokens as Yylex and DirectScanner,
+ * running the DFA of ScannerTables one table lookup per character. It is
+ * meant for short runs over one file, where the scanner's start-up counts:
+ * the tables are precompiled to scanner.tables by DirectScannerGenerator
+ * and read in bulk (or memory-mapped with --mmap), with nothing to unpack
+ * or build. Text that no rule matches is an ERROR token, reported on
+ * System.err by main() as Yylex does. Lines and columns count from 1,
+ * columns in chars.
+ *
+ * Usage: java src.TableScanner [--tables file | --mmap file] [source file, default tests/test1.lang]
+ */
+
+
+package src;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+
+public final class TableScanner {
+    private final DFA dfa;
+    private final TokenType[] types;
+    private final int[] kinds;  // Kind of each state, or -1 if it does not accept
+
+    private char[] buf;
+    private int base;           // Index in buf of the start of the text
+    private int end;
+    private int pos;            // Next char to scan
+    private int line;           // Line of pos
+    private int lineStart;      // Index in buf of the first char of that line
+
+    private TokenType tokenType;
+    private int tokenStart;
+    private int tokenLength;
+    private int tokenLine;
+    private int tokenCol;
+
+    /** Creates a scanner over source[offset, offset + length), which is not copied. */
+    public TableScanner(ScannerTables tables, char[] source, int offset, int length) {
+        dfa = tables.dfa;
+        types = tables.types;
+        kinds = new int[dfa.states()];
+        for (int s = 0; s < kinds.length; s++) kinds[s] = dfa.kind(s);
+        reset(source, offset, length);
+    }
+
+    public TableScanner(ScannerTables tables, CharSequence source) {
+        this(tables, new char[0], 0, 0);
+        reset(source);
+    }
+
+    /** Starts over on source[offset, offset + length); offsets count from offset. */
+    public void reset(char[] source, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > source.length) {
+            throw new IndexOutOfBoundsException("Range " + offset + "+" + length + " of " + source.length);
+        }
+        buf = source;
+        base = offset;
+        end = offset + length;
+        pos = offset;
+        line = 1;
+        lineStart = offset;
+        tokenType = null;
+    }
+
+    public void reset(CharSequence source) {
+        char[] chars = source.toString().toCharArray();
+        reset(chars, 0, chars.length);
+    }
+
+    /**
+     * Scans the next token. The token is described by type(), startOffset(),
+     * length(), line() and column() until the next call.
+     */
+    public TokenType next() {
+        char[] b = buf;
+        int e = end;
+        int[] transitions = dfa.transitions;
+        int symbols = dfa.symbols;
+        while (true) {
+            int start = pos;
+            tokenStart = start;
+            tokenLine = line;
+            tokenCol = start - lineStart + 1;
+            if (start >= e) {
+                tokenType = TokenType.EOF;
+                tokenLength = 0;
+                return TokenType.EOF;
+            }
+            // The longest match: run until the DFA gets stuck, remembering the last accept
+            int p = start;
+            int kind = -1;
+            int accepted = start;
+            int state = 0;
+            while (p < e) {
+                int c = b[p];
+                if (c >= 0xD800 && c < 0xDC00) c = codePoint(b, p, e);
+                int symbol = dfa.symbol(c);
+                if (symbol < 0) break;
+                state = transitions[state * symbols + symbol];
+                if (state < 0) break;
+                p += Character.charCount(c);
+                if (kinds[state] >= 0) {
+                    kind = kinds[state];
+                    accepted = p;
+                }
+            }
+            if (kind < 0) throw new IllegalStateException("Could not match input at offset " + (start - base));
+            pos = accepted;
+            countLines(start, accepted);
+            TokenType type = types[kind];
+            if (type != null) {
+                tokenType = type;
+                tokenLength = accepted - start;
+                return type;
+            }
+        }
+    }
+
+    // Moves line and lineStart past buf[from, to), counting line ends as Yylex does
+    private void countLines(int from, int to) {
+        char[] b = buf;
+        for (int i = from; i < to; i++) {
+            char c = b[i];
+            if (c > '\r' && c != 0x85 && c != 0x2028 && c != 0x2029) continue;
+            if (c == '\n' || c == 0x0B || c == 0x0C || c == 0x85 || c == 0x2028 || c == 0x2029) {
+                line++;
+                lineStart = i + 1;
+            } else if (c == '\r') {
+                if (i + 1 >= end || b[i + 1] != '\n') line++;   // A \r\n pair counts once, at the \n
+                lineStart = i + 1;
+            }
+        }
+    }
+
+    // The code point at p, which holds a high surrogate
+    private static int codePoint(char[] b, int p, int e) {
+        if (p + 1 < e && Character.isLowSurrogate(b[p + 1])) return Character.toCodePoint(b[p], b[p + 1]);
+        return b[p];
+    }
+
+    public TokenType type() { return tokenType; }
+
+    /** Offset of the token's first character in the text. */
+    public int startOffset() { return tokenStart - base; }
+
+    public int length() { return tokenLength; }
+
+    public int line() { return tokenLine; }
+
+    public int column() { return tokenCol; }
+
+    public String text() { return new String(buf, tokenStart, tokenLength); }
+
+    /** Passes the token just scanned to sink, lexeme included, without creating a Token. */
+    public void emit(TokenSink sink) throws IOException {
+        sink.token(tokenType, tokenStart - base, buf, tokenStart, tokenLength, tokenLine, tokenCol);
+    }
+
+    public static void main(String[] args) {
+        int first = args.length > 1 && (args[0].equals("--tables") || args[0].equals("--mmap")) ? 2 : 0;
+        String testFile = args.length > first ? args[first] : "tests/test1.lang";
+        try {
+            ScannerTables tables;
+            if (first == 0) {
+                tables = ScannerTables.load();
+            } else if (args[0].equals("--mmap")) {
+                tables = ScannerTables.map(Paths.get(args[1]));
+            } else {
+                try (InputStream in = new FileInputStream(args[1])) {
+                    tables = ScannerTables.read(in);
+                }
+            }
+
+            // Decoded like the FileReader of JFlexRunner, in the default charset
+            String source;
+            try (InputStream in = new FileInputStream(testFile)) {
+                source = new String(in.readAllBytes());
+            }
+            System.out.println("Reading from: " + testFile);
+            TableScanner scanner = new TableScanner(tables, source);
+            TokenSink sink = new TextTokenSink(System.out);
+
+            System.out.println("--- Table Scanner Output ---");
+            while (scanner.next() != TokenType.EOF) {
+                if (scanner.type() == TokenType.ERROR) System.err.println("Illegal character: " + scanner.text());
+                scanner.emit(sink);
+            }
+            sink.flush();
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * TextTokenSink
+ * -------------------------
+ * Writes tokens in the scanner output format, one per line:
+ * <TYPE, "lexeme", Line: n, Col: m>. The output is byte for byte what
+ * System.out.println(token) prints, but each line is assembled by hand in a
+ * large byte buffer that is written to the channel only when it fills up,
+ * instead of going through String.format and a synchronized stream for
+ * every token. Lexemes outside ASCII are encoded with the default charset,
+ * as System.out does.
+ */
+
+
+package src;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
+public class TextTokenSink implements TokenSink {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte[][] TYPE_NAMES;
+    private static final byte[] LINE = "\", Line: ".getBytes();
+    private static final byte[] COL = ", Col: ".getBytes();
+    private static final byte[] NEWLINE = (">" + System.lineSeparator()).getBytes();
+
+    static {
+        TokenType[] types = TokenType.values();
+        TYPE_NAMES = new byte[types.length][];
+        for (TokenType type : types) TYPE_NAMES[type.ordinal()] = ("<" + type + ", \"").getBytes();
+    }
+
+    private final WritableByteChannel out;
+    private final Charset charset = Charset.defaultCharset();
+    private byte[] buf = new byte[BUFFER_SIZE];
+    private int pos = 0;
+
+    public TextTokenSink(OutputStream out) {
+        this(Channels.newChannel(out));
+    }
+
+    public TextTokenSink(WritableByteChannel out) {
+        this.out = out;
+    }
+
+    @Override
+    public void token(TokenType type, int offset, char[] text, int start, int length, int line, int column) throws IOException {
+        // Room for the type name, two ints, the punctuation and an ASCII lexeme
+        ensure(128 + length);
+        put(TYPE_NAMES[type.ordinal()]);
+        for (int i = start; i < start + length; i++) {
+            char c = text[i];
+            if (c >= 0x80) {
+                byte[] rest = new String(text, i, start + length - i).getBytes(charset);
+                ensure(rest.length + 64);
+                put(rest);
+                break;
+            }
+            buf[pos++] = (byte) c;
+        }
+        put(LINE);
+        putInt(line);
+        put(COL);
+        putInt(column);
+        put(NEWLINE);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(buf, 0, pos);
+        while (bytes.hasRemaining()) out.write(bytes);
+        pos = 0;
+    }
+
+    private void ensure(int needed) throws IOException {
+        if (buf.length - pos >= needed) return;
+        flush();
+        if (buf.length < needed) buf = new byte[needed];
+    }
+
+    private void put(byte[] bytes) {
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+    }
+
+    private void putInt(int value) {
+        if (value < 0) {
+            if (value == Integer.MIN_VALUE) {
+                put(Integer.toString(value).getBytes());
+                return;
+            }
+            buf[pos++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) digits++;
+        pos += digits;
+        for (int i = pos - 1; i >= pos - digits; i--) {
+            buf[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
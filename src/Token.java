@@ -15,6 +15,7 @@ public class Token {
     public String lexeme;
     public int line;
     public int column;
+    public int symbol = -1;     // Symbol table id for identifiers, -1 otherwise
 
     public Token(TokenType type, String lexeme, int line, int column) {
         this.type = type;
@@ -26,7 +27,6 @@ public class Token {
     @Override
     public String toString() {
         // Format required: <KEYWORD, "start", Line: 1, Col: 1>
-        return String.format("<%s, \"%s\", Line: %d, Col: %d>", 
-            type, lexeme, line, column);
+        return "<" + type + ", \"" + lexeme + "\", Line: " + line + ", Col: " + column + ">";
     }
 }
@@ -0,0 +1,267 @@
+/**
+ * TokenBuffer
+ * -------------------------
+ * Stores a whole token stream in packed columnar form: token type ordinals,
+ * start offsets, lengths, lines and columns are kept in parallel primitive
+ * arrays that grow as tokens are added. Lexemes are not stored; they are cut
+ * from the source text on demand, and Token objects are only created when a
+ * caller asks for one, either by index or through the iterator view.
+ *
+ * splice() keeps a gap in the arrays at the last place it changed, the way
+ * an editor's gap buffer does, so that an edit costs the tokens it replaces
+ * plus the distance from the previous edit rather than the whole stream.
+ * The starts and lines of the tokens after the gap are stored without the
+ * shift of the edits made before them; the shift is added on access, and
+ * folded in only for the tokens the gap moves over.
+ */
+
+
+package src;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class TokenBuffer implements Iterable<Token> {
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final CharSequence source;
+    private byte[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private int[] columns;
+    private int size = 0;
+    private int gap;            // Index of the first token after the gap; size if there is none
+    private int gapLength;      // Free slots in the gap
+    private int tailOffset;     // Not yet applied to the starts after the gap
+    private int tailLine;       // Not yet applied to their lines
+
+    public TokenBuffer(CharSequence source) {
+        this(source, INITIAL_CAPACITY);
+    }
+
+    public TokenBuffer(CharSequence source, int capacity) {
+        this.source = source;
+        capacity = Math.max(capacity, 16);
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.lines = new int[capacity];
+        this.columns = new int[capacity];
+        this.gapLength = capacity;
+    }
+
+    /** Scans the whole source with a ManualScanner and returns its tokens (EOF excluded). */
+    public static TokenBuffer scan(CharSequence source, Symbols st, ErrorHandler eh) {
+        TokenBuffer tokens = new TokenBuffer(source, Math.max(INITIAL_CAPACITY, source.length() / 4));
+        tokens.fill(new ManualScanner(source, st, eh));
+        return tokens;
+    }
+
+    /** Appends every remaining token of the scanner, up to but not including EOF. */
+    public void fill(ManualScanner scanner) {
+        TokenType type;
+        while ((type = scanner.next()) != TokenType.EOF) {
+            add(type, scanner.startOffset(), scanner.length(), scanner.line(), scanner.column());
+        }
+    }
+
+    /** Appends every remaining token of the JFlex scanner, up to but not including EOF. */
+    public void fill(Yylex scanner) throws IOException {
+        TokenType type;
+        while ((type = scanner.next()) != TokenType.EOF) {
+            add(type, scanner.startOffset(), scanner.length(), scanner.line(), scanner.column());
+        }
+    }
+
+    public void add(TokenType type, int start, int length, int line, int column) {
+        if (gap != size) moveGap(size);
+        if (gapLength == 0) grow();
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        columns[size] = column;
+        size++;
+        gap++;
+        gapLength--;
+    }
+
+    /**
+     * Replaces tokens [from, to) with the tokens of insert, and moves the
+     * tokens after them by offsetDelta chars and lineDelta lines.
+     */
+    void splice(int from, int to, TokenBuffer insert, int offsetDelta, int lineDelta) {
+        moveGap(to);
+        gap = from;
+        gapLength += to - from;
+        size -= to - from;
+        tailOffset += offsetDelta;
+        tailLine += lineDelta;
+
+        int n = insert.size;
+        insert.moveGap(n);
+        while (gapLength < n) grow();
+        System.arraycopy(insert.types, 0, types, gap, n);
+        System.arraycopy(insert.starts, 0, starts, gap, n);
+        System.arraycopy(insert.lengths, 0, lengths, gap, n);
+        System.arraycopy(insert.lines, 0, lines, gap, n);
+        System.arraycopy(insert.columns, 0, columns, gap, n);
+        gap += n;
+        gapLength -= n;
+        size += n;
+    }
+
+    // Moves the gap to just before token index, applying the pending shift to
+    // the tokens it passes on the way right and taking it off those it passes
+    // on the way left
+    private void moveGap(int index) {
+        if (index < gap) {
+            int count = gap - index;
+            int to = index + gapLength;
+            System.arraycopy(types, index, types, to, count);
+            System.arraycopy(starts, index, starts, to, count);
+            System.arraycopy(lengths, index, lengths, to, count);
+            System.arraycopy(lines, index, lines, to, count);
+            System.arraycopy(columns, index, columns, to, count);
+            for (int i = to; i < to + count; i++) {
+                starts[i] -= tailOffset;
+                lines[i] -= tailLine;
+            }
+        } else if (index > gap) {
+            int count = index - gap;
+            int from = gap + gapLength;
+            System.arraycopy(types, from, types, gap, count);
+            System.arraycopy(starts, from, starts, gap, count);
+            System.arraycopy(lengths, from, lengths, gap, count);
+            System.arraycopy(lines, from, lines, gap, count);
+            System.arraycopy(columns, from, columns, gap, count);
+            for (int i = gap; i < index; i++) {
+                starts[i] += tailOffset;
+                lines[i] += tailLine;
+            }
+        }
+        gap = index;
+        if (gap == size) {
+            tailOffset = 0;
+            tailLine = 0;
+        }
+    }
+
+    /** A copy of the tokens over the same source. */
+    public TokenBuffer copy() {
+        if (gap != size) moveGap(size);   // Buffers that were never spliced are left untouched
+        TokenBuffer copy = new TokenBuffer(source, size);
+        System.arraycopy(types, 0, copy.types, 0, size);
+        System.arraycopy(starts, 0, copy.starts, 0, size);
+        System.arraycopy(lengths, 0, copy.lengths, 0, size);
+        System.arraycopy(lines, 0, copy.lines, 0, size);
+        System.arraycopy(columns, 0, copy.columns, 0, size);
+        copy.size = size;
+        copy.gap = size;
+        copy.gapLength -= size;
+        return copy;
+    }
+
+    /** Bytes that write() needs for these tokens. */
+    int byteSize() {
+        return 4 + 17 * size;
+    }
+
+    /** Writes the tokens to out: the count, the types, then starts, lengths, lines and columns. */
+    void write(ByteBuffer out) {
+        if (gap != size) moveGap(size);
+        out.putInt(size);
+        out.put(types, 0, size);
+        for (int[] column : new int[][] {starts, lengths, lines, columns}) {
+            out.asIntBuffer().put(column, 0, size);
+            out.position(out.position() + 4 * size);
+        }
+    }
+
+    /** Reads tokens written by write() from in, over the given source. */
+    static TokenBuffer read(CharSequence source, ByteBuffer in) {
+        int size = in.getInt();
+        TokenBuffer tokens = new TokenBuffer(source, size);
+        in.get(tokens.types, 0, size);
+        for (int[] column : new int[][] {tokens.starts, tokens.lengths, tokens.lines, tokens.columns}) {
+            in.asIntBuffer().get(column, 0, size);
+            in.position(in.position() + 4 * size);
+        }
+        tokens.size = size;
+        tokens.gap = size;
+        tokens.gapLength -= size;
+        return tokens;
+    }
+
+    // Doubles the capacity, widening the gap
+    private void grow() {
+        int capacity = types.length * 2;
+        int tail = size - gap;
+        int from = gap + gapLength;
+        int to = capacity - tail;
+        types = grown(types, capacity, from, to, tail);
+        starts = grown(starts, capacity, from, to, tail);
+        lengths = grown(lengths, capacity, from, to, tail);
+        lines = grown(lines, capacity, from, to, tail);
+        columns = grown(columns, capacity, from, to, tail);
+        gapLength = to - gap;
+    }
+
+    private byte[] grown(byte[] array, int capacity, int from, int to, int tail) {
+        byte[] copy = Arrays.copyOf(array, capacity);
+        System.arraycopy(array, from, copy, to, tail);
+        return copy;
+    }
+
+    private int[] grown(int[] array, int capacity, int from, int to, int tail) {
+        int[] copy = Arrays.copyOf(array, capacity);
+        System.arraycopy(array, from, copy, to, tail);
+        return copy;
+    }
+
+    public int size() { return size; }
+
+    public CharSequence source() { return source; }
+
+    public TokenType type(int i) { return TYPES[types[i < gap ? i : i + gapLength]]; }
+
+    public int start(int i) { return i < gap ? starts[i] : starts[i + gapLength] + tailOffset; }
+
+    public int length(int i) { return lengths[i < gap ? i : i + gapLength]; }
+
+    public int line(int i) { return i < gap ? lines[i] : lines[i + gapLength] + tailLine; }
+
+    public int column(int i) { return columns[i < gap ? i : i + gapLength]; }
+
+    public String lexeme(int i) {
+        int start = start(i);
+        return source.subSequence(start, start + length(i)).toString();
+    }
+
+    public Token get(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Token " + i + " of " + size);
+        return new Token(type(i), lexeme(i), line(i), column(i));
+    }
+
+    /** Iterates over the tokens, creating each Token only as it is reached. */
+    @Override
+    public Iterator<Token> iterator() {
+        return new Iterator<Token>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() { return next < size; }
+
+            @Override
+            public Token next() {
+                if (next >= size) throw new NoSuchElementException();
+                return get(next++);
+            }
+        };
+    }
+}
@@ -0,0 +1,364 @@
+/**
+ * TokenCache
+ * -------------------------
+ * Remembers the result of scanning a source, so that tools that scan the
+ * same unchanged files again and again skip the lexing. Entries are keyed
+ * by a 64-bit hash of the source bytes, the scanner used and SCANNER_VERSION
+ * (to be raised whenever a change to a scanner changes its output). An
+ * entry holds the source bytes, the token stream, the symbols found and the
+ * errors reported. The bytes are compared on every hit, so two sources
+ * whose hashes collide are never mistaken for each other. On a hit the
+ * symbols are added to the caller's SymbolTable and the errors are
+ * reported again through the caller's ErrorHandler, just as a scan would
+ * have done. Yylex has neither, so JFLEX entries hold only the tokens and
+ * the line count; the "Illegal character" lines it prints are not repeated
+ * on a hit.
+ *
+ * Sources are decoded as UTF-8 whatever the platform charset, so that an
+ * entry means the same on every machine sharing a directory, and line
+ * endings are kept as they are, so token offsets are offsets into the file.
+ *
+ * The in-memory tier is an LRU map bounded by the estimated size of its
+ * entries. With a directory, entries are also written to disk, one file per
+ * key, and a memory miss is looked up there before scanning; the disk tier
+ * is not bounded. An entry that cannot be written to disk is only kept in
+ * memory; the scan still succeeds. Hits, misses, disk hits, evictions and
+ * store failures are counted.
+ */
+
+
+package src;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+public class TokenCache {
+    public static final int SCANNER_VERSION = 1;
+    private static final int DISK_MAGIC = ('L' << 24) | ('T' << 16) | ('C' << 8) | 'H';
+    private static final int DISK_FORMAT = 2;
+    private static final int HEADER_SIZE = 28;
+
+    public enum Scanner { MANUAL, JFLEX }
+
+    /**
+     * What a scan produced: the tokens, and the line the scanner ended on.
+     * storeFailure is set when the entry could not be written to disk.
+     */
+    public static class Result {
+        public final TokenBuffer tokens;
+        public final int lines;
+        public final IOException storeFailure;
+
+        Result(TokenBuffer tokens, int lines, IOException storeFailure) {
+            this.tokens = tokens;
+            this.lines = lines;
+            this.storeFailure = storeFailure;
+        }
+    }
+
+    private static class Diagnostic {
+        final String type;
+        final int line;
+        final int column;
+        final String lexeme;
+        final String reason;
+
+        Diagnostic(String type, int line, int column, String lexeme, String reason) {
+            this.type = type;
+            this.line = line;
+            this.column = column;
+            this.lexeme = lexeme;
+            this.reason = reason;
+        }
+    }
+
+    // Records the errors of a scan, to be reported to the caller from the entry
+    private static class RecordingErrors extends ErrorHandler {
+        final List<Diagnostic> list = new ArrayList<>();
+
+        RecordingErrors() {
+            super(false);
+        }
+
+        @Override
+        public void reportError(String type, int line, int column, String lexeme, String reason) {
+            list.add(new Diagnostic(type, line, column, lexeme, reason));
+        }
+    }
+
+    private static class Entry {
+        final byte[] source;
+        final TokenBuffer tokens;
+        final int lines;
+        final SymbolTable symbols;
+        final List<Diagnostic> errors;
+        final long weight;
+
+        Entry(byte[] source, TokenBuffer tokens, int lines, SymbolTable symbols, List<Diagnostic> errors) {
+            this.source = source;
+            this.tokens = tokens;
+            this.lines = lines;
+            this.symbols = symbols;
+            this.errors = errors;
+            this.weight = 64 + source.length + 2L * tokens.source().length() + 17L * tokens.size()
+                + symbols.footprint() + 64L * errors.size();
+        }
+    }
+
+    private final long maxBytes;
+    private final Path directory;
+    private final LinkedHashMap<Long, Entry> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes = 0;
+    private long hits = 0;
+    private long diskHits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long storeFailures = 0;
+
+    /** A cache of up to maxBytes in memory only. */
+    public TokenCache(long maxBytes) {
+        this(maxBytes, null);
+    }
+
+    /** A cache of up to maxBytes in memory, backed by files in directory (if not null). */
+    public TokenCache(long maxBytes, Path directory) {
+        this.maxBytes = maxBytes;
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the tokens of the file as the scanner reads it from a stream
+     * (ManualScanner adds a final '\n' if the file lacks one), adding its symbols to st and reporting its errors to eh. Either may be
+     * null. Files that are already cached are not scanned. Only a failure to
+     * read the file is thrown.
+     */
+    public Result scan(Path file, Scanner scanner, Symbols st, ErrorHandler eh) throws IOException {
+        byte[] source = Files.readAllBytes(file);
+        long key = key(source, scanner);
+
+        Entry entry;
+        IOException storeFailure = null;
+        synchronized (this) {
+            entry = memory.get(key);
+            if (entry != null && !Arrays.equals(entry.source, source)) entry = null;
+            if (entry != null) hits++;
+        }
+        if (entry == null && directory != null) {
+            entry = load(key, source, scanner);
+            if (entry != null) {
+                synchronized (this) { diskHits++; }
+                put(key, entry);
+            }
+        }
+        if (entry == null) {
+            synchronized (this) { misses++; }
+            entry = scan(source, scanner);
+            put(key, entry);
+            if (directory != null) {
+                try {
+                    store(key, entry);
+                } catch (IOException e) {
+                    synchronized (this) { storeFailures++; }
+                    storeFailure = e;
+                }
+            }
+        }
+
+        if (st != null) st.addAll(entry.symbols);
+        if (eh != null) {
+            for (Diagnostic e : entry.errors) eh.reportError(e.type, e.line, e.column, e.lexeme, e.reason);
+        }
+        // A copy, so that callers cannot change what is cached
+        return new Result(entry.tokens.copy(), entry.lines, storeFailure);
+    }
+
+    public synchronized long hits() { return hits; }
+
+    public synchronized long diskHits() { return diskHits; }
+
+    public synchronized long misses() { return misses; }
+
+    public synchronized long evictions() { return evictions; }
+
+    /** Entries that could not be written to the directory. */
+    public synchronized long storeFailures() { return storeFailures; }
+
+    public synchronized int entries() { return memory.size(); }
+
+    /** Estimated size of the entries held in memory. */
+    public synchronized long bytes() { return bytes; }
+
+    public synchronized String stats() {
+        return String.format("%d hits, %d disk hits, %d misses, %d evictions, %d store failures, %d entries (%.1f MB of %.1f MB)",
+            hits, diskHits, misses, evictions, storeFailures, memory.size(), bytes / 1048576.0, maxBytes / 1048576.0);
+    }
+
+    private synchronized void put(long key, Entry entry) {
+        if (entry.weight > maxBytes) return;
+        Entry old = memory.put(key, entry);
+        if (old != null) bytes -= old.weight;
+        bytes += entry.weight;
+
+        // Least recently used first
+        Iterator<Entry> it = memory.values().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Entry eldest = it.next();
+            if (eldest == entry) continue;
+            it.remove();
+            bytes -= eldest.weight;
+            evictions++;
+        }
+    }
+
+    private static Entry scan(byte[] source, Scanner scanner) throws IOException {
+        String text = text(source, scanner);
+        SymbolTable symbols = new SymbolTable();
+        RecordingErrors errors = new RecordingErrors();
+        TokenBuffer tokens = new TokenBuffer(text, Math.max(1024, text.length() / 4));
+        int lines;
+        if (scanner == Scanner.JFLEX) {
+            Yylex yylex = new Yylex(new StringReader(text));
+            tokens.fill(yylex);
+            lines = yylex.line();
+        } else {
+            ManualScanner manual = new ManualScanner((CharSequence) text, symbols, errors);
+            tokens.fill(manual);
+            lines = manual.line;
+        }
+        return new Entry(source, tokens, lines, symbols, errors.list);
+    }
+
+    // The text as the scanner sees it when it reads the file as a stream
+    private static String text(byte[] source, Scanner scanner) {
+        String text = new String(source, StandardCharsets.UTF_8);
+        if (scanner == Scanner.MANUAL && !text.isEmpty() && !text.endsWith("\n")) text += '\n';
+        return text;
+    }
+
+    private static long key(byte[] source, Scanner scanner) {
+        long h = hash(source);
+        h ^= (long) SCANNER_VERSION << 8 | scanner.ordinal();
+        return fmix(h);
+    }
+
+    // Eight bytes at a time, in the style of MurmurHash3; enough to tell sources apart
+    static long hash(byte[] data) {
+        final long m1 = 0x87c37b91114253d5L;
+        final long m2 = 0x4cf5ad432745937fL;
+        ByteBuffer words = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        long h = data.length;
+        int i = 0;
+        for (; i + 8 <= data.length; i += 8) {
+            long k = words.getLong(i) * m1;
+            k = Long.rotateLeft(k, 31) * m2;
+            h ^= k;
+            h = Long.rotateLeft(h, 27) * 5 + 0x52dce729;
+        }
+        long tail = 0;
+        for (int j = data.length - 1; j >= i; j--) tail = (tail << 8) | (data[j] & 0xff);
+        h ^= Long.rotateLeft(tail * m1, 31) * m2;
+        return fmix(h);
+    }
+
+    private static long fmix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private Path file(long key) {
+        return directory.resolve(String.format("%016x.tokc", key));
+    }
+
+    // Layout: a header, the source bytes, the token and symbol table arrays
+    // (read and written in bulk), then the errors in DataOutput form
+    private void store(long key, Entry entry) throws IOException {
+        ByteArrayOutputStream rest = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(rest)) {
+            out.writeInt(entry.errors.size());
+            for (Diagnostic e : entry.errors) {
+                out.writeUTF(e.type);
+                out.writeInt(e.line);
+                out.writeInt(e.column);
+                out.writeUTF(e.lexeme);
+                out.writeUTF(e.reason);
+            }
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + entry.source.length + entry.tokens.byteSize()
+            + entry.symbols.byteSize() + rest.size());
+        buf.putInt(DISK_MAGIC);
+        buf.putInt(DISK_FORMAT);
+        buf.putInt(SCANNER_VERSION);
+        buf.putLong(key);
+        buf.putInt(entry.source.length);
+        buf.putInt(entry.lines);
+        buf.put(entry.source);
+        entry.tokens.write(buf);
+        entry.symbols.write(buf);
+        buf.put(rest.toByteArray());
+        buf.flip();
+
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "entry", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buf.hasRemaining()) channel.write(buf);
+            }
+            Files.move(temp, file(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);   // Left behind only if the write or move failed
+        }
+    }
+
+    // Returns null if there is no usable entry on disk
+    private Entry load(long key, byte[] source, Scanner scanner) throws IOException {
+        Path path = file(key);
+        if (!Files.exists(path)) return null;
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            if (bytes.length < HEADER_SIZE + source.length || buf.getInt() != DISK_MAGIC
+                    || buf.getInt() != DISK_FORMAT || buf.getInt() != SCANNER_VERSION
+                    || buf.getLong() != key || buf.getInt() != source.length) {
+                return null;
+            }
+            int lines = buf.getInt();
+            // Another source with the same key
+            if (!Arrays.equals(bytes, HEADER_SIZE, HEADER_SIZE + source.length, source, 0, source.length)) return null;
+            buf.position(HEADER_SIZE + source.length);
+            TokenBuffer tokens = TokenBuffer.read(text(source, scanner), buf);
+            SymbolTable symbols = SymbolTable.read(buf);
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, buf.position(), buf.remaining()));
+            int errorCount = in.readInt();
+            List<Diagnostic> errors = new ArrayList<>(errorCount);
+            for (int i = 0; i < errorCount; i++) {
+                errors.add(new Diagnostic(in.readUTF(), in.readInt(), in.readInt(), in.readUTF(), in.readUTF()));
+            }
+            return new Entry(source, tokens, lines, symbols, errors);
+        } catch (IOException | RuntimeException e) {
+            return null;   // A damaged entry is scanned again and rewritten
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/**
+ * TokenFile
+ * -------------------------
+ * A compact on-disk form of a token stream, so that later stages can load
+ * the tokens of an unchanged source instead of scanning it again. The
+ * Writer is a TokenSink that either scanner can emit into; the Reader maps
+ * the file and walks it with the same cursor methods as the scanners.
+ *
+ * Layout: the magic "LTOK" and a version byte, then one record per token,
+ * then the lexeme pool, then a fixed-size footer. A record is a series of
+ * unsigned LEB128 varints: the type ordinal shifted left by one, the gap
+ * from the end of the previous token to the start of this one, then the
+ * change in line number (zigzag encoded) and the column, and finally the
+ * index of the lexeme in the pool. Most tokens follow the previous one on
+ * the same line, where the column is implied by the gap; for those the low
+ * bit of the first varint is set and the line and column are left out, so
+ * a typical record is three or four bytes. Each distinct lexeme is stored
+ * once in the pool as its length followed by its chars, each as a varint.
+ * The footer holds the position of the pool (8 bytes), the token count and
+ * pool size (4 bytes each), and the magic again.
+ *
+ * Usage: java src.TokenFile write <file.lang> <out.tok> [--jflex]
+ *        java src.TokenFile print <file.tok>
+ */
+
+
+package src;
+
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class TokenFile {
+    private static final int MAGIC = ('L' << 24) | ('T' << 16) | ('O' << 8) | 'K';
+    private static final byte VERSION = 1;
+    private static final int FOOTER_SIZE = 20;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final TokenType[] TYPES = TokenType.values();
+
+    /** Writes a token file; close() adds the lexeme pool and the footer. */
+    public static class Writer implements TokenSink, Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+        private final SymbolTable pool = new SymbolTable();   // Interns lexemes to dense ids
+        private long written = 0;
+        private int count = 0;
+        private int previousStart = 0;
+        private int previousEnd = 0;
+        private int previousLine = 0;
+        private int previousCol = 0;
+
+        public Writer(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                       StandardOpenOption.TRUNCATE_EXISTING);
+            buf.putInt(MAGIC);
+            buf.put(VERSION);
+        }
+
+        @Override
+        public void token(TokenType type, int offset, char[] text, int start, int length, int line, int column) throws IOException {
+            if (type == TokenType.EOF) return;
+            if (buf.remaining() < 25) flush();
+            boolean sameLine = line == previousLine && column == previousCol + (offset - previousStart);
+            putVarint(type.ordinal() << 1 | (sameLine ? 1 : 0));
+            putVarint(offset - previousEnd);
+            if (!sameLine) {
+                putVarint(zigzag(line - previousLine));
+                putVarint(column);
+            }
+            putVarint(pool.add(text, start, length, "LEXEME", line));
+            previousStart = offset;
+            previousEnd = offset + length;
+            previousLine = line;
+            previousCol = column;
+            count++;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) written += channel.write(buf);
+            buf.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            long poolPosition = written;
+            for (int id = 0; id < pool.size(); id++) {
+                String lexeme = pool.name(id);
+                if (buf.remaining() < 5) flush();
+                putVarint(lexeme.length());
+                for (int i = 0; i < lexeme.length(); i++) {
+                    if (buf.remaining() < 5) flush();
+                    putVarint(lexeme.charAt(i));
+                }
+            }
+            if (buf.remaining() < FOOTER_SIZE) flush();
+            buf.putLong(poolPosition);
+            buf.putInt(count);
+            buf.putInt(pool.size());
+            buf.putInt(MAGIC);
+            flush();
+            channel.close();
+        }
+
+        private void putVarint(int value) {
+            while ((value & ~0x7f) != 0) {
+                buf.put((byte) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            buf.put((byte) value);
+        }
+    }
+
+    /** Reads a memory-mapped token file, one token at a time. */
+    public static class Reader {
+        private final ByteBuffer data;
+        private final int size;
+        private final char[] pool;          // All lexemes, back to back
+        private final int[] poolStarts;     // Lexeme i is pool[poolStarts[i], poolStarts[i + 1])
+
+        private int index = 0;
+        private TokenType tokenType;
+        private int tokenStart;
+        private int tokenLexeme;
+        private int tokenLine = 0;
+        private int tokenCol;
+        private int previousEnd = 0;
+
+        public Reader(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (data.limit() < 5 + FOOTER_SIZE || data.getInt(0) != MAGIC
+                    || data.getInt(data.limit() - 4) != MAGIC) {
+                throw new IOException("Not a token file: " + path);
+            }
+            if (data.get(4) != VERSION) {
+                throw new IOException("Unsupported token file version " + data.get(4) + ": " + path);
+            }
+            int footer = data.limit() - FOOTER_SIZE;
+            int poolPosition = (int) data.getLong(footer);
+            size = data.getInt(footer + 8);
+            int poolSize = data.getInt(footer + 12);
+
+            // The pool is decoded up front; the token records are decoded as they are read
+            data.position(poolPosition);
+            poolStarts = new int[poolSize + 1];
+            char[] chars = new char[Math.max(16, footer - poolPosition)];
+            int length = 0;
+            for (int id = 0; id < poolSize; id++) {
+                poolStarts[id] = length;
+                int n = getVarint();
+                for (int i = 0; i < n; i++) chars[length++] = (char) getVarint();
+            }
+            poolStarts[poolSize] = length;
+            pool = chars;
+            data.position(5);
+        }
+
+        /** Number of tokens in the file. */
+        public int size() { return size; }
+
+        /** Moves to the next token and returns its type, or EOF after the last one. */
+        public TokenType next() {
+            if (index == size) {
+                tokenType = TokenType.EOF;
+                tokenStart = previousEnd;
+                tokenLexeme = -1;
+                return TokenType.EOF;
+            }
+            int head = getVarint();
+            int previousStart = tokenStart;
+            tokenType = TYPES[head >>> 1];
+            tokenStart = previousEnd + getVarint();
+            if ((head & 1) != 0) {
+                tokenCol += tokenStart - previousStart;
+            } else {
+                int delta = getVarint();
+                tokenLine += (delta >>> 1) ^ -(delta & 1);
+                tokenCol = getVarint();
+            }
+            tokenLexeme = getVarint();
+            previousEnd = tokenStart + length();
+            index++;
+            return tokenType;
+        }
+
+        public TokenType type() { return tokenType; }
+
+        public int startOffset() { return tokenStart; }
+
+        public int length() { return tokenLexeme < 0 ? 0 : poolStarts[tokenLexeme + 1] - poolStarts[tokenLexeme]; }
+
+        public int line() { return tokenLine; }
+
+        public int column() { return tokenCol; }
+
+        public String text() { return tokenLexeme < 0 ? "" : new String(pool, poolStarts[tokenLexeme], length()); }
+
+        /** Passes the current token to sink, as the scanners' emit() does. */
+        public void emit(TokenSink sink) throws IOException {
+            int start = tokenLexeme < 0 ? 0 : poolStarts[tokenLexeme];
+            sink.token(tokenType, tokenStart, pool, start, length(), tokenLine, tokenCol);
+        }
+
+        private int getVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data.get();
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /** Scans a source file with ManualScanner, or Yylex when jflex is set, into a token file. */
+    public static int write(String sourcePath, Path out, boolean jflex) throws IOException {
+        try (Writer writer = new Writer(out)) {
+            if (jflex) {
+                Yylex scanner = new Yylex(new FileReader(sourcePath));
+                while (scanner.next() != TokenType.EOF) scanner.emit(writer);
+            } else {
+                ManualScanner scanner = new ManualScanner(sourcePath, new SymbolTable(), new ErrorHandler(false));
+                while (scanner.next() != TokenType.EOF) scanner.emit(writer);
+            }
+            return writer.count;
+        }
+    }
+
+    private TokenFile() {}
+
+    public static void main(String[] args) {
+        try {
+            if (args.length >= 3 && args[0].equals("write")) {
+                boolean jflex = args.length > 3 && args[3].equals("--jflex");
+                int tokens = write(args[1], Paths.get(args[2]), jflex);
+                System.out.printf("%d tokens, %d source bytes, %d token file bytes%n",
+                    tokens, Files.size(Paths.get(args[1])), Files.size(Paths.get(args[2])));
+            } else if (args.length >= 2 && args[0].equals("print")) {
+                Reader reader = new Reader(Paths.get(args[1]));
+                TokenSink sink = new TextTokenSink(System.out);
+                while (reader.next() != TokenType.EOF) reader.emit(sink);
+                sink.flush();
+            } else {
+                System.err.println("Usage: java src.TokenFile write <file.lang> <out.tok> [--jflex]");
+                System.err.println("       java src.TokenFile print <file.tok>");
+            }
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+}
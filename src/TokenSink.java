@@ -0,0 +1,23 @@
+/**
+ * TokenSink
+ * -------------------------
+ * Receives the tokens of a scan as plain values: the type, the offset of the
+ * token in the source, the lexeme as a range of the scanner's own buffer,
+ * and the line and column, so that writing a token out does not require a
+ * Token object or a String. ManualScanner.emit() and Yylex.emit() pass the
+ * current token to a sink. Implementations format tokens as text
+ * (TextTokenSink), as binary records (BinaryTokenSink), into a token file
+ * (TokenFile.Writer) or drop them (NullTokenSink).
+ */
+
+
+package src;
+
+import java.io.IOException;
+
+public interface TokenSink {
+    void token(TokenType type, int offset, char[] text, int start, int length, int line, int column) throws IOException;
+
+    /** Writes out anything still buffered. */
+    void flush() throws IOException;
+}
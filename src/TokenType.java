@@ -5,6 +5,8 @@
  * including language keywords, literals, operators, punctuators, and special
  * control tokens such as EOF and ERROR. This enumeration standardizes token
  * classification so scanners and parsers can consistently interpret source code.
+ * Keyword types carry their spellings, which is the single definition the
+ * scanners' keyword matching is built from.
  */
 
 
@@ -12,8 +14,9 @@ package src;
 
 public enum TokenType {
     // Keywords
-    START, FINISH, LOOP, CONDITION, DECLARE, OUTPUT, INPUT, 
-    FUNCTION, RETURN, BREAK, CONTINUE, ELSE,
+    START("start"), FINISH("finish"), LOOP("loop"), CONDITION("condition"),
+    DECLARE("declare"), OUTPUT("output"), INPUT("input"), FUNCTION("function"),
+    RETURN("return"), BREAK("break"), CONTINUE("continue"), ELSE("else"),
     
     // Literals
     IDENTIFIER,     // Starts with Uppercase
@@ -21,7 +24,7 @@ public enum TokenType {
     FLOAT,          // Decimal or Scientific
     STRING,         // "..."
     CHAR,           // '.'
-    BOOLEAN,        // true/false
+    BOOLEAN("true", "false"),
     
     // Operators
     ARITHMETIC_OP,  // +, -, *, /, %, **
@@ -38,5 +41,16 @@ public enum TokenType {
     
     // Special
     EOF,            // End of File
-    ERROR           // For ErrorHandler
+    ERROR;          // For ErrorHandler
+
+    private final String[] spellings;
+
+    TokenType(String... spellings) {
+        this.spellings = spellings;
+    }
+
+    /** The keyword spellings that scan as this type; empty for non-keywords. */
+    public String[] spellings() {
+        return spellings.clone();
+    }
 }
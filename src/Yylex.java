@@ -361,7 +361,6 @@ public class Yylex {
   private int yycolumn;
 
   /** Number of characters up to the start of the matched text. */
-  @SuppressWarnings("unused")
   private long yychar;
 
   /** Whether the scanner is currently at the beginning of a line. */
@@ -373,13 +372,131 @@ public class Yylex {
   private boolean zzEOFDone;
 
   /* user code: */
+  /* Returned by actions while next() is scanning, instead of a new Token */
+  private static final Token CURSOR = new Token(null, "", 0, 0);
+
+  private TokenType tokenType;
+  private boolean cursorMode;
+
   private Token token(TokenType type) {
+      tokenType = type;
+      if (cursorMode) return CURSOR;
       return new Token(type, yytext(), yyline + 1, yycolumn + 1);
   }
   private Token token(TokenType type, String text) {
+      tokenType = type;
+      if (cursorMode) return CURSOR;
       return new Token(type, text, yyline + 1, yycolumn + 1);
   }
 
+  /**
+   * Scans the next token without allocating a Token for it. The token is
+   * described by type(), startOffset(), length(), line() and column() until
+   * the next call; its lexeme is only built when text() is called.
+   */
+  public TokenType next() throws java.io.IOException {
+      cursorMode = true;
+      try {
+          if (yylex() == null) tokenType = TokenType.EOF;
+      } finally {
+          cursorMode = false;
+      }
+      return tokenType;
+  }
+
+  public TokenType type() { return tokenType; }
+  public int startOffset() { return (int) yychar; }
+  public int length() { return tokenType == TokenType.EOF ? 0 : yylength(); }
+  public int line() { return yyline + 1; }
+  public int column() { return yycolumn + 1; }
+  public String text() { return tokenType == TokenType.EOF ? "" : yytext(); }
+  public void emit(TokenSink sink) throws java.io.IOException {
+      if (tokenType == TokenType.EOF) sink.token(tokenType, (int) yychar, zzBuffer, 0, 0, line(), column());
+      else sink.token(tokenType, (int) yychar, zzBuffer, zzStartRead, yylength(), line(), column());
+  }
+
+  /* Input for in-memory text, which is already all in zzBuffer */
+  private static final java.io.Reader NO_INPUT = new java.io.Reader() {
+      @Override
+      public int read(char[] cbuf, int off, int len) { return -1; }
+      @Override
+      public void close() {}
+  };
+  private static final char[] NO_BUFFER = new char[0];  // Keeps yyreset() from dropping a buffer we reuse
+
+  /**
+   * Creates a streaming scanner whose buffer starts at bufferSize chars
+   * instead of ZZ_BUFFERSIZE. The buffer still doubles for tokens longer
+   * than it.
+   */
+  public Yylex(java.io.Reader in, int bufferSize) {
+      this(in);
+      if (bufferSize < 1) throw new IllegalArgumentException("Buffer size " + bufferSize);
+      zzBuffer = new char[bufferSize];
+  }
+
+  /** Creates a scanner over source[offset, offset + length), with no Reader in between. */
+  public Yylex(char[] source, int offset, int length) {
+      this(NO_INPUT);
+      reset(source, offset, length);
+  }
+
+  /** Creates a scanner over source, with no Reader in between. */
+  public Yylex(CharSequence source) {
+      this(NO_INPUT);
+      reset(source);
+  }
+
+  /**
+   * Starts over on source[offset, offset + length). The text is copied
+   * into the scanner's buffer in one go, growing it only if it is too
+   * small, and scanned from there without refills; offsets and lines count
+   * from offset. (The generated code compacts its buffer when a match
+   * reaches the end of the input, so it cannot scan the caller's array in
+   * place.)
+   */
+  public void reset(char[] source, int offset, int length) {
+      if (offset < 0 || length < 0 || offset + length > source.length) {
+          throw new IndexOutOfBoundsException("Range " + offset + "+" + length + " of " + source.length);
+      }
+      restart(NO_INPUT, length);
+      System.arraycopy(source, offset, zzBuffer, 0, length);
+      zzEndRead = length;
+  }
+
+  /** Starts over on source, as reset(char[], int, int) does. */
+  public void reset(CharSequence source) {
+      int length = source.length();
+      restart(NO_INPUT, length);
+      if (source instanceof String) {
+          ((String) source).getChars(0, length, zzBuffer, 0);
+      } else if (source instanceof java.nio.CharBuffer) {
+          ((java.nio.CharBuffer) source).duplicate().get(zzBuffer, 0, length);
+      } else {
+          for (int i = 0; i < length; i++) zzBuffer[i] = source.charAt(i);
+      }
+      zzEndRead = length;
+  }
+
+  /** Starts over on in, with a buffer of at least bufferSize chars (kept from the last input if it is large enough). */
+  public void reset(java.io.Reader in, int bufferSize) {
+      if (bufferSize < 1) throw new IllegalArgumentException("Buffer size " + bufferSize);
+      restart(in, bufferSize);
+  }
+
+  /* The DFA tables, for DirectScannerGenerator: character map (top and blocks), row map, transitions, attributes and actions */
+  static int[][] tables() {
+      return new int[][] { ZZ_CMAP_TOP, ZZ_CMAP_BLOCKS, ZZ_ROWMAP, ZZ_TRANS, ZZ_ATTRIBUTE, ZZ_ACTION };
+  }
+
+  // yyreset(), keeping the buffer when it holds at least size chars
+  private void restart(java.io.Reader in, int size) {
+      char[] buffer = zzBuffer.length >= Math.max(size, 1) ? zzBuffer : new char[Math.max(size, 1)];
+      zzBuffer = NO_BUFFER;
+      yyreset(in);
+      zzBuffer = buffer;
+  }
+
 
   /**
    * Creates a new scanner
@@ -668,6 +785,8 @@ public class Yylex {
     while (true) {
       zzMarkedPosL = zzMarkedPos;
 
+      yychar+= zzMarkedPosL-zzStartRead;
+
       boolean zzR = false;
       int zzCh;
       int zzCharCount;